@@ -0,0 +1,27 @@
+package com.cristian.centralrobots.core;
+
+import com.cristian.centralrobots.domain.Instruction;
+
+/**
+ * Acción específica de un comando, ejecutada por el robot al terminar su tiempo de servicio.
+ * <p>
+ * Los manejadores declarados en configuración se instancian por reflexión, por lo que
+ * deben tener un constructor público sin argumentos. Se comparten entre todos los
+ * robots, así que deben ser thread-safe.
+ * </p>
+ */
+@FunctionalInterface
+public interface CommandHandler {
+
+    /**
+     * Manejador vacío: el robot solo registra el inicio y el fin de la tarea.
+     */
+    CommandHandler NONE = (robotId, instruction) -> { };
+
+    /**
+     * Ejecuta la acción del comando.
+     * @param robotId ID del robot que ejecuta la instrucción.
+     * @param instruction La instrucción en curso.
+     */
+    void execute(int robotId, Instruction instruction);
+}
@@ -0,0 +1,369 @@
+package com.cristian.centralrobots.core;
+
+import com.cristian.centralrobots.domain.CommandType;
+import com.cristian.centralrobots.robots.ServiceTimeModel;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registro de comandos: asocia cada nombre de comando con su manejador y su modelo de
+ * tiempo de servicio.
+ * <p>
+ * <strong>Decisión de Diseño (Despacho):</strong>
+ * Los comandos se guardan en una tabla de hash perfecto que se recalcula cada vez que cambia
+ * el registro: se busca una semilla con la que ningún nombre colisiona, de modo que cada
+ * búsqueda es un cálculo de hash y una única comparación, sin excepciones ni objetos nuevos.
+ * La tabla es inmutable y se publica en un campo {@code volatile}, por lo que los hilos que
+ * parsean o ejecutan nunca se bloquean mientras se recarga la configuración.
+ * </p>
+ * Los comandos del enum {@link CommandType} están siempre registrados. El fichero de
+ * configuración ({@link #reload(Path)}) añade comandos o redefine los existentes, con el formato:
+ * <pre>
+ * NOMBRE = [modelo de tiempo][; clase del manejador]
+ * SCAN   = uniform:100:300
+ * WELD   = exp:800 ; com.ejemplo.WeldHandler
+ * </pre>
+ */
+public class CommandRegistry {
+
+    private static final Logger logger = Logger.getLogger(CommandRegistry.class.getName());
+
+    private static final CommandRegistry DEFAULT = new CommandRegistry();
+
+    // Silencio necesario tras un cambio antes de recargar (agrupa truncar + escribir)
+    private static final long DEBOUNCE_MILLIS = 200;
+
+    // Tabla de despacho vigente (se sustituye entera en cada cambio)
+    private volatile DispatchTable table;
+
+    // Comandos definidos en el último fichero de configuración cargado
+    private Map<String, CommandDefinition> configured = new LinkedHashMap<>();
+
+    /**
+     * Crea un registro que solo contiene los comandos incorporados.
+     */
+    public CommandRegistry() {
+        this.table = DispatchTable.build(buildDefinitions(configured));
+    }
+
+    /**
+     * Registro compartido por el servidor, el parser y los robots.
+     * @return El registro por defecto.
+     */
+    public static CommandRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Busca un comando por su nombre (sin distinguir mayúsculas).
+     * @param name Nombre del comando.
+     * @return La definición del comando, o {@code null} si no existe.
+     */
+    public CommandDefinition lookup(String name) {
+        return table.lookup(name, 0, name.length());
+    }
+
+    /**
+     * Busca un comando dentro de un fragmento de texto, sin crear subcadenas.
+     * @param text Texto que contiene el nombre (ej: la línea completa recibida).
+     * @param start Posición inicial del nombre (incluida).
+     * @param end Posición final del nombre (excluida).
+     * @return La definición del comando, o {@code null} si no existe.
+     */
+    public CommandDefinition lookup(String text, int start, int end) {
+        return table.lookup(text, start, end);
+    }
+
+    /**
+     * Registra (o redefine) un comando en caliente. Se mantiene hasta la próxima llamada a
+     * {@link #reload(Path)}, que sustituye todos los comandos configurados.
+     * @param name Nombre del comando.
+     * @param handler Manejador del comando.
+     * @param serviceTimeModel Modelo de tiempo, o {@code null} para usar el del robot.
+     */
+    public synchronized void register(String name, CommandHandler handler, ServiceTimeModel serviceTimeModel) {
+        Map<String, CommandDefinition> next = new LinkedHashMap<>(configured);
+        String key = name.trim().toUpperCase(Locale.ROOT);
+        next.put(key, new CommandDefinition(key, typeFor(key), handler, serviceTimeModel));
+        this.table = DispatchTable.build(buildDefinitions(next));
+        this.configured = next;
+    }
+
+    /**
+     * Carga los comandos de un fichero de configuración y sustituye a los cargados anteriormente.
+     * Si el fichero tiene algún error, el registro no cambia.
+     * @param file Fichero de configuración (formato {@link Properties}).
+     * @throws IOException Si no se puede leer el fichero.
+     * @throws IllegalArgumentException Si alguna definición no es válida.
+     */
+    public void reload(Path file) throws IOException, IllegalArgumentException {
+        apply(Files.readAllBytes(file));
+    }
+
+    private synchronized void apply(byte[] content) throws IOException, IllegalArgumentException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(new String(content, StandardCharsets.UTF_8)));
+
+        Map<String, CommandDefinition> next = new LinkedHashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            String key = name.trim().toUpperCase(Locale.ROOT);
+            next.put(key, parseDefinition(key, properties.getProperty(name)));
+        }
+        this.table = DispatchTable.build(buildDefinitions(next));
+        this.configured = next;
+        logger.log(Level.INFO, "Registro de comandos recargado: {0} comandos configurados", next.size());
+    }
+
+    /**
+     * Carga el fichero y lo vigila en un hilo en segundo plano, recargándolo al modificarse.
+     * <p>
+     * Un editor que trunca el fichero y luego lo escribe expone durante un instante un
+     * fichero vacío o a medias. Para no aplicarlo, cada recarga espera
+     * {@value #DEBOUNCE_MILLIS} ms sin cambios, descarta la lectura si el fichero cambia
+     * mientras se lee e ignora un fichero vacío (para no dejar comandos configurados, debe
+     * contener al menos un comentario). Lo más seguro es escribir la nueva versión en un
+     * fichero temporal del mismo directorio y sustituir la anterior renombrándola.
+     * </p>
+     * @param file Fichero de configuración.
+     * @return Recurso que detiene la vigilancia al cerrarlo.
+     * @throws IOException Si no se puede leer el fichero o registrar la vigilancia.
+     */
+    public Closeable watch(Path file) throws IOException {
+        reload(file);
+        Path absolute = file.toAbsolutePath();
+        WatchService watcher = FileSystems.getDefault().newWatchService();
+        absolute.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread thread = new Thread(() -> watchLoop(watcher, absolute), "command-registry-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    private void watchLoop(WatchService watcher, Path file) {
+        try (watcher) {
+            while (true) {
+                boolean changed = affects(watcher.take(), file);
+                if (!changed) {
+                    continue;
+                }
+                // Esperamos a que dejen de llegar eventos: un guardado genera varios seguidos
+                WatchKey key;
+                while ((key = watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    affects(key, file);
+                }
+                reloadIfStable(file);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.info("Vigilancia de comandos finalizada");
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Vigilancia de comandos detenida", e);
+        }
+    }
+
+    private static boolean affects(WatchKey key, Path file) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= file.getFileName().equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Recarga el fichero solo si no ha cambiado mientras se leía y no está vacío.
+     */
+    private void reloadIfStable(Path file) {
+        try {
+            BasicFileAttributes before = Files.readAttributes(file, BasicFileAttributes.class);
+            byte[] content = Files.readAllBytes(file);
+            BasicFileAttributes after = Files.readAttributes(file, BasicFileAttributes.class);
+            if (content.length != after.size() || before.size() != after.size()
+                    || !before.lastModifiedTime().equals(after.lastModifiedTime())) {
+                logger.info("Fichero de comandos modificado durante la lectura: se espera al siguiente cambio");
+                return;
+            }
+            if (content.length == 0) {
+                logger.warning("Fichero de comandos vacio (posible escritura a medias): se ignora");
+                return;
+            }
+            apply(content);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.log(Level.WARNING, "Configuracion de comandos no aplicada: {0}", e.getMessage());
+        }
+    }
+
+    private static CommandDefinition parseDefinition(String name, String value) {
+        String[] parts = value.split(";", 2);
+        String modelSpec = parts[0].trim();
+        ServiceTimeModel model = modelSpec.isEmpty() ? null : ServiceTimeModel.parse(modelSpec);
+        CommandHandler handler = (parts.length > 1) ? instantiate(parts[1].trim()) : CommandHandler.NONE;
+        return new CommandDefinition(name, typeFor(name), handler, model);
+    }
+
+    private static CommandHandler instantiate(String className) {
+        try {
+            return Class.forName(className).asSubclass(CommandHandler.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Manejador de comando invalido: " + className);
+        }
+    }
+
+    /**
+     * Los nombres del enum conservan su tipo; el resto son comandos {@link CommandType#CUSTOM}.
+     */
+    private static CommandType typeFor(String name) {
+        for (CommandType type : CommandType.values()) {
+            if (isBuiltIn(type) && type.name().equals(name)) {
+                return type;
+            }
+        }
+        return CommandType.CUSTOM;
+    }
+
+    private static boolean isBuiltIn(CommandType type) {
+        return type != CommandType.UNKNOWN && type != CommandType.CUSTOM;
+    }
+
+    private static CommandDefinition[] buildDefinitions(Map<String, CommandDefinition> configured) {
+        Map<String, CommandDefinition> all = new LinkedHashMap<>();
+        for (CommandType type : CommandType.values()) {
+            if (isBuiltIn(type)) {
+                all.put(type.name(), new CommandDefinition(type.name(), type, CommandHandler.NONE, null));
+            }
+        }
+        all.putAll(configured);
+        return all.values().toArray(new CommandDefinition[0]);
+    }
+
+    /**
+     * Definición inmutable de un comando registrado.
+     */
+    public static class CommandDefinition {
+
+        private final String name;
+        private final CommandType type;
+        private final CommandHandler handler;
+        private final ServiceTimeModel serviceTimeModel;
+
+        CommandDefinition(String name, CommandType type, CommandHandler handler, ServiceTimeModel serviceTimeModel) {
+            this.name = name;
+            this.type = type;
+            this.handler = handler;
+            this.serviceTimeModel = serviceTimeModel;
+        }
+
+        /**
+         * @return Nombre del comando en mayúsculas.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Tipo del comando ({@link CommandType#CUSTOM} si no pertenece al enum).
+         */
+        public CommandType getType() {
+            return type;
+        }
+
+        /**
+         * @return Manejador del comando.
+         */
+        public CommandHandler getHandler() {
+            return handler;
+        }
+
+        /**
+         * @return Modelo de tiempo de servicio, o {@code null} para usar el del robot.
+         */
+        public ServiceTimeModel getServiceTimeModel() {
+            return serviceTimeModel;
+        }
+    }
+
+    /**
+     * Tabla de hash perfecto: cada nombre ocupa una posición distinta para la semilla elegida.
+     */
+    private static class DispatchTable {
+
+        private static final int MAX_SEED_ATTEMPTS = 1_000;
+
+        private final CommandDefinition[] slots;
+        private final int mask;
+        private final int seed;
+
+        private DispatchTable(CommandDefinition[] slots, int seed) {
+            this.slots = slots;
+            this.mask = slots.length - 1;
+            this.seed = seed;
+        }
+
+        /**
+         * Busca la semilla que coloca todos los nombres sin colisiones, ampliando la tabla si hace falta.
+         */
+        static DispatchTable build(CommandDefinition[] definitions) {
+            int size = Integer.highestOneBit(Math.max(8, definitions.length * 2 - 1)) << 1;
+            while (true) {
+                for (int seed = 0; seed < MAX_SEED_ATTEMPTS; seed++) {
+                    CommandDefinition[] slots = new CommandDefinition[size];
+                    boolean collision = false;
+                    for (CommandDefinition definition : definitions) {
+                        int index = hash(definition.name, 0, definition.name.length(), seed) & (size - 1);
+                        if (slots[index] != null) {
+                            collision = true;
+                            break;
+                        }
+                        slots[index] = definition;
+                    }
+                    if (!collision) {
+                        return new DispatchTable(slots, seed);
+                    }
+                }
+                size <<= 1;
+            }
+        }
+
+        CommandDefinition lookup(String text, int start, int end) {
+            CommandDefinition candidate = slots[hash(text, start, end, seed) & mask];
+            int length = end - start;
+            if (candidate != null && candidate.name.length() == length
+                    && candidate.name.regionMatches(true, 0, text, start, length)) {
+                return candidate;
+            }
+            return null;
+        }
+
+        /**
+         * Hash FNV-1a con semilla, insensible a mayúsculas.
+         */
+        private static int hash(String text, int start, int end, int seed) {
+            int h = 0x811C9DC5 ^ (seed * 0x9E3779B9);
+            for (int i = start; i < end; i++) {
+                h = (h ^ Character.toUpperCase(text.charAt(i))) * 0x01000193;
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
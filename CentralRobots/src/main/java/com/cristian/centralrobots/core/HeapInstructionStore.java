@@ -0,0 +1,39 @@
+package com.cristian.centralrobots.core;
+
+import com.cristian.centralrobots.domain.Instruction;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Almacén por defecto: mantiene las instrucciones como objetos Java en una lista del heap.
+ * Sin límite de capacidad, {@link #offer(Instruction)} siempre tiene éxito.
+ */
+public class HeapInstructionStore implements InstructionStore {
+
+    private final List<Instruction> buffer = new ArrayList<>();
+
+    @Override
+    public boolean offer(Instruction instr) {
+        return buffer.add(instr);
+    }
+
+    @Override
+    public Instruction removeFirstFor(int robotId) {
+        for (int i = 0; i < buffer.size(); i++) {
+            if (buffer.get(i).getRobotId() == robotId) {
+                return buffer.remove(i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        buffer.clear();
+    }
+
+    @Override
+    public int size() {
+        return buffer.size();
+    }
+}
@@ -1,8 +1,8 @@
 package com.cristian.centralrobots.core;
 
 import com.cristian.centralrobots.domain.Instruction;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.logging.Logger;
 
 /**
@@ -17,40 +17,97 @@ import java.util.logging.Logger;
  * evitando así el consumo innecesario de CPU ("busy wait").</li>
  * <li>Cuando entra una instrucción, se notifica a todos (notifyAll) para que 
  * comprueben si es para ellos.</li>
+ * <li>Si el almacén tiene capacidad limitada (ej: {@link OffHeapInstructionStore}),
+ * los productores esperan (wait) a que un robot libere espacio.</li>
  * </ul>
  */
 public class InstructionBox {
 
     private static final Logger logger = Logger.getLogger(InstructionBox.class.getName());
     
-    // Lista compartida donde se guardan las instrucciones pendientes
-    private final List<Instruction> buffer;
+    // Almacén compartido donde se guardan las instrucciones pendientes
+    private final InstructionStore buffer;
     
     // Flag para controlar el apagado ordenado del sistema
     private boolean isSystemActive; 
 
+    // Productores bloqueados esperando espacio en el almacén
+    private int waitingProducers;
+
+    // IDs de los robots dados de alta (si no hay ninguno se aceptan todos)
+    private final Set<Integer> robotIds = new HashSet<>();
+
     /**
-     * Constructor del buzón. Inicializa la lista y activa el sistema.
+     * Constructor del buzón. Inicializa una lista en el heap y activa el sistema.
      */
     public InstructionBox() {
-        this.buffer = new ArrayList<>();
+        this(new HeapInstructionStore());
+    }
+
+    /**
+     * Constructor del buzón con un almacén concreto.
+     * @param store Almacén donde guardar las instrucciones pendientes.
+     */
+    public InstructionBox(InstructionStore store) {
+        this.buffer = store;
         this.isSystemActive = true;
     }
 
+    /**
+     * Da de alta un robot consumidor. Una vez hay robots dados de alta, el buzón rechaza
+     * las instrucciones para IDs que ninguno atiende: se quedarían en el almacén para siempre
+     * ocupando espacio.
+     * @param robotId ID del robot.
+     */
+    public synchronized void registerRobot(int robotId) {
+        robotIds.add(robotId);
+    }
+
+    /**
+     * Indica si algún robot atiende un ID (siempre cierto si no hay robots dados de alta).
+     * @param robotId ID del robot.
+     * @return true si las instrucciones para ese ID se aceptan.
+     */
+    public synchronized boolean servesRobot(int robotId) {
+        return robotIds.isEmpty() || robotIds.contains(robotId);
+    }
+
     /**
      * Método PRODUCTOR: Añade una instrucción al buzón.
      * <p>
      * Es {@code synchronized} para evitar condiciones de carrera al escribir en la lista.
-     * Despierta a los hilos consumidores con {@code notifyAll()}.
+     * Despierta a los hilos consumidores con {@code notifyAll()}. Si el almacén está lleno,
+     * espera hasta que un robot libere espacio. El estado del sistema se comprueba antes de
+     * cada intento, de modo que nada se encola tras el apagado (que vacía el almacén).
      * @param instr La instrucción validada a encolar.
+     * @return true si se ha encolado, false si el sistema se está apagando y se descarta.
+     * @throws InterruptedException Si el hilo es interrumpido mientras espera espacio.
+     * @throws IllegalArgumentException Si ningún robot dado de alta atiende ese ID.
      */
-    public synchronized void put(Instruction instr) {
-        buffer.add(instr);
+    public synchronized boolean put(Instruction instr) throws InterruptedException {
+        if (!servesRobot(instr.getRobotId())) {
+            throw new IllegalArgumentException("No existe ningun robot con ID " + instr.getRobotId());
+        }
+        while (true) {
+            if (!isSystemActive) {
+                return false;
+            }
+            if (buffer.offer(instr)) {
+                break;
+            }
+            waitingProducers++;
+            try {
+                wait();
+            } finally {
+                waitingProducers--;
+            }
+        }
         logger.info("Buzón: Instrucción encolada para Robot " + instr.getRobotId());
         
         // Usamos notifyAll() en lugar de notify() porque podría haber varios robots esperando
         // y queremos asegurar que el destinatario correcto se entere.
         notifyAll();
+        return true;
     }
 
     /**
@@ -66,11 +123,13 @@ public class InstructionBox {
         // Bucle de espera (Guarded Block)
         while (isSystemActive) {
             // 1. Buscamos si hay algo para este robot en la lista
-            for (int i = 0; i < buffer.size(); i++) {
-                if (buffer.get(i).getRobotId() == robotId) {
-                    // La sacamos de la lista y la devolvemos
-                    return buffer.remove(i);
+            Instruction instr = buffer.removeFirstFor(robotId);
+            if (instr != null) {
+                // Hemos liberado espacio: avisamos a los productores bloqueados, si los hay
+                if (waitingProducers > 0) {
+                    notifyAll();
                 }
+                return instr;
             }
 
             // 2. Si no hay nada para mí, ME DUERMO (wait).
@@ -1,6 +1,5 @@
 package com.cristian.centralrobots.core;
 
-import com.cristian.centralrobots.domain.CommandType;
 import com.cristian.centralrobots.domain.Instruction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -8,13 +7,23 @@ import java.util.logging.Logger;
 /**
  * Clase utilitaria encargada de analizar (parsear) las cadenas de texto
  * provenientes de los sockets y convertirlas en objetos Instruction.
+ * <p>
+ * Los comandos se resuelven en el {@link CommandRegistry} directamente sobre la línea
+ * recibida, sin trocearla. {@link #tryParse(String, CommandRegistry)} informa de un comando
+ * desconocido devolviendo {@code null}, sin lanzar excepciones ni crear objetos nuevos.
+ * </p>
  */
 public class InstructionParser {
 
     private static final Logger logger = Logger.getLogger(InstructionParser.class.getName());
 
     /**
-     * Convierte una línea de texto en un objeto Instruction validado.
+     * Mensaje de error para un comando que no está en el registro.
+     */
+    public static final String UNKNOWN_COMMAND = "Comando desconocido o invalido";
+
+    /**
+     * Convierte una línea de texto en un objeto Instruction validado usando el registro por defecto.
      * <p>
      * Formato esperado: ROBOT_ID | COMANDO | PARAMS
      * Ejemplo válido: "1|MOVE|10"
@@ -23,39 +32,87 @@ public class InstructionParser {
      * @throws IllegalArgumentException Si el formato es incorrecto, el ID no es numérico o el comando no existe.
      */
     public static Instruction parse(String rawLine) throws IllegalArgumentException {
+        return parse(rawLine, CommandRegistry.getDefault());
+    }
+
+    /**
+     * Convierte una línea de texto en un objeto Instruction validado.
+     * @param rawLine La línea de texto recibida por el socket.
+     * @param registry Registro donde resolver el comando.
+     * @return Objeto Instruction si el formato es válido.
+     * @throws IllegalArgumentException Si el formato es incorrecto, el ID no es numérico o el comando no existe.
+     */
+    public static Instruction parse(String rawLine, CommandRegistry registry) throws IllegalArgumentException {
+        Instruction instr = tryParse(rawLine, registry);
+        if (instr == null) {
+            throw new IllegalArgumentException(UNKNOWN_COMMAND);
+        }
+        return instr;
+    }
+
+    /**
+     * Convierte una línea de texto en un objeto Instruction, sin lanzar excepciones si el
+     * comando no existe (el caso habitual al recibir comandos erróneos de los clientes).
+     * @param rawLine La línea de texto recibida por el socket.
+     * @param registry Registro donde resolver el comando.
+     * @return Objeto Instruction si el formato es válido, o {@code null} si el comando no existe.
+     * @throws IllegalArgumentException Si la línea está vacía, el formato es incorrecto o el ID no es numérico.
+     */
+    public static Instruction tryParse(String rawLine, CommandRegistry registry) throws IllegalArgumentException {
         // 1. Validaciones básicas de nulidad
-        if (rawLine == null || rawLine.trim().isEmpty()) {
+        if (rawLine == null || rawLine.isBlank()) {
             throw new IllegalArgumentException("Mensaje vacío");
         }
 
-        // 2. Separamos por la barra vertical "|"
-        // (Usamos \\| porque en expresiones regulares | es un carácter especial)
-        String[] parts = rawLine.split("\\|");
-
-        if (parts.length < 2) {
+        // 2. Localizamos los separadores "|" sin crear subcadenas
+        int firstBar = rawLine.indexOf('|');
+        if (firstBar < 0) {
             throw new IllegalArgumentException("Formato incorrecto. Se espera: ID|COMANDO|PARAMS");
         }
+        int secondBar = rawLine.indexOf('|', firstBar + 1);
+        int commandEnd = (secondBar < 0) ? rawLine.length() : secondBar;
 
+        // 3. Parseamos el ID del Robot (debe ser un numero)
+        int id;
+        int idStart = skipSpaces(rawLine, 0, firstBar);
+        int idEnd = trimEnd(rawLine, idStart, firstBar);
         try {
-            // 3. Parseamos el ID del Robot (debe ser un numero)
-            int id = Integer.parseInt(parts[0].trim());
+            id = Integer.parseInt(rawLine, idStart, idEnd, 10);
+        } catch (NumberFormatException e) {
+            logger.log(Level.WARNING, "Error parseando ID: {0}", rawLine.substring(0, firstBar));
+            throw new IllegalArgumentException("El ID del robot debe ser un numero entero");
+        }
 
-            // 4. Parseamos el Comando (debe coincidir con el Enum)
-            String cmdStr = parts[1].trim().toUpperCase();
-            CommandType command = CommandType.valueOf(cmdStr); 
+        // 4. Resolvemos el Comando en el registro (tabla de despacho precalculada)
+        int cmdStart = skipSpaces(rawLine, firstBar + 1, commandEnd);
+        int cmdEnd = trimEnd(rawLine, cmdStart, commandEnd);
+        CommandRegistry.CommandDefinition command = registry.lookup(rawLine, cmdStart, cmdEnd);
+        if (command == null) {
+            return null;
+        }
 
-            // 5. Obtenemos los Parámetros (si los hay)
-            String params = (parts.length > 2) ? parts[2].trim() : "";
+        // 5. Obtenemos los Parámetros (si los hay), hasta el siguiente separador
+        String params = "";
+        if (secondBar >= 0) {
+            int thirdBar = rawLine.indexOf('|', secondBar + 1);
+            params = rawLine.substring(secondBar + 1, (thirdBar < 0) ? rawLine.length() : thirdBar).trim();
+        }
 
-            // Todo correcto: devolvemos el objeto
-            return new Instruction(id, command, params);
+        // Todo correcto: devolvemos el objeto
+        return new Instruction(id, command.getType(), command.getName(), params);
+    }
 
-        } catch (NumberFormatException e) {
-            logger.log(Level.WARNING, "Error parseando ID: {0}", parts[0]);
-            throw new IllegalArgumentException("El ID del robot debe ser un numero entero");
-        } catch (IllegalArgumentException e) {
-            logger.log(Level.WARNING, "Comando desconocido: {0}", parts[1]);
-            throw new IllegalArgumentException("Comando desconocido o invalido");
+    private static int skipSpaces(String text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
         }
+        return end;
     }
-}
\ No newline at end of file
+}
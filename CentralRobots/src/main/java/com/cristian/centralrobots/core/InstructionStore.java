@@ -0,0 +1,39 @@
+package com.cristian.centralrobots.core;
+
+import com.cristian.centralrobots.domain.Instruction;
+
+/**
+ * Almacenamiento de instrucciones pendientes utilizado por el {@link InstructionBox}.
+ * <p>
+ * Las implementaciones <strong>no</strong> son thread-safe: toda la sincronización
+ * la realiza el monitor que las envuelve.
+ * </p>
+ */
+public interface InstructionStore {
+
+    /**
+     * Intenta almacenar una instrucción al final de la cola.
+     * @param instr La instrucción a guardar.
+     * @return true si se ha guardado, false si no hay espacio disponible en este momento.
+     * @throws IllegalArgumentException Si la instrucción nunca podría caber en el almacén.
+     */
+    boolean offer(Instruction instr);
+
+    /**
+     * Extrae la instrucción más antigua destinada a un robot concreto.
+     * @param robotId ID del robot que solicita trabajo.
+     * @return La instrucción extraída, o {@code null} si no hay ninguna para ese robot.
+     */
+    Instruction removeFirstFor(int robotId);
+
+    /**
+     * Descarta todas las instrucciones pendientes.
+     */
+    void clear();
+
+    /**
+     * Número de instrucciones pendientes.
+     * @return int con el número de instrucciones almacenadas.
+     */
+    int size();
+}
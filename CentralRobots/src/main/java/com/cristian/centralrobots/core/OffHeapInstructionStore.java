@@ -0,0 +1,347 @@
+package com.cristian.centralrobots.core;
+
+import com.cristian.centralrobots.domain.CommandType;
+import com.cristian.centralrobots.domain.Instruction;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Almacén de instrucciones fuera del heap, sobre un anillo de bytes ({@link ByteBuffer}
+ * directo o mapeado en memoria).
+ * <p>
+ * <strong>Decisión de Diseño (Memoria):</strong>
+ * Las instrucciones pendientes se guardan codificadas, no como objetos. Así la profundidad
+ * de la cola no aumenta el trabajo del recolector de basura: solo se crea el objeto
+ * {@link Instruction} cuando un robot la extrae.
+ * </p>
+ * Formato de cada registro (alineado a 4 bytes):
+ * <pre>
+ * int   longitud total del registro (negativa = relleno hasta el final del anillo)
+ * int   ID del robot
+ * byte  estado (1 = pendiente, 0 = ya consumido)
+ * byte  ordinal del {@link CommandType}
+ * short longitud de los parámetros (sin signo)
+ * [byte longitud + byte[] nombre del comando] solo si es {@link CommandType#CUSTOM}
+ * byte[] parámetros en UTF-8
+ * </pre>
+ * Los registros consumidos en mitad de la cola se marcan y su espacio se recupera
+ * cuando dejan de tener registros pendientes por delante. Si un registro pendiente que
+ * nadie extrae (un robot lento) bloquea la cabeza y falta sitio, los registros pendientes
+ * se compactan al principio del anillo, conservando su orden, para reutilizar los huecos.
+ * La compactación se hace sobre el propio anillo, por bloques de {@value #CHUNK_SIZE} bytes,
+ * sin reservar otro buffer del tamaño del anillo.
+ */
+public class OffHeapInstructionStore implements InstructionStore {
+
+    private static final int HEADER_SIZE = 12;
+    private static final int CHUNK_SIZE = 4096;
+    private static final int MAX_PARAMS_BYTES = 0xFFFF;
+    private static final int MAX_NAME_BYTES = 0xFF;
+    private static final byte STATE_PENDING = 1;
+    private static final byte STATE_CONSUMED = 0;
+    private static final CommandType[] COMMANDS = CommandType.values();
+
+    private final ByteBuffer ring;
+    private final int capacity;
+
+    private int head;   // Primer registro ocupado
+    private int tail;   // Siguiente posición de escritura
+    private int used;   // Bytes ocupados (registros + relleno)
+    private int count;  // Registros pendientes
+    private int live;   // Bytes de los registros pendientes
+
+    // Bloques auxiliares para compactar (se crean al primer uso)
+    private byte[] chunk;
+    private byte[] otherChunk;
+
+    /**
+     * Crea un almacén sobre un buffer directo (memoria nativa del proceso).
+     * @param capacityBytes Tamaño del anillo en bytes.
+     */
+    public OffHeapInstructionStore(int capacityBytes) {
+        this(ByteBuffer.allocateDirect(align(capacityBytes)));
+    }
+
+    private OffHeapInstructionStore(ByteBuffer ring) {
+        if (ring.capacity() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Capacidad insuficiente para el anillo de instrucciones");
+        }
+        this.ring = ring;
+        this.capacity = ring.capacity() & ~3;
+    }
+
+    /**
+     * Crea un almacén sobre un fichero mapeado en memoria. El sistema operativo decide
+     * qué páginas mantener en RAM, por lo que la cola puede superar la memoria del proceso.
+     * <p>
+     * El fichero solo se usa como respaldo de memoria: su contenido no se recupera tras un reinicio.
+     * </p>
+     * @param file Fichero de respaldo (se crea si no existe).
+     * @param capacityBytes Tamaño del anillo en bytes.
+     * @return El almacén mapeado.
+     * @throws IOException Si no se puede crear o mapear el fichero.
+     */
+    public static OffHeapInstructionStore mapped(Path file, int capacityBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new OffHeapInstructionStore(channel.map(FileChannel.MapMode.READ_WRITE, 0, align(capacityBytes)));
+        }
+    }
+
+    @Override
+    public boolean offer(Instruction instr) {
+        byte[] params = instr.getParams().getBytes(StandardCharsets.UTF_8);
+        if (params.length > MAX_PARAMS_BYTES) {
+            throw new IllegalArgumentException("Parametros demasiado largos");
+        }
+        byte[] name = (instr.getCommand() == CommandType.CUSTOM)
+                ? instr.getCommandName().getBytes(StandardCharsets.UTF_8) : null;
+        if (name != null && name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Nombre de comando demasiado largo");
+        }
+        int nameSize = (name != null) ? 1 + name.length : 0;
+        int size = align(HEADER_SIZE + nameSize + params.length);
+        if (size > capacity) {
+            throw new IllegalArgumentException("La instruccion no cabe en el anillo");
+        }
+
+        if (!reserve(size)) {
+            // Sin hueco contiguo: si los huecos de registros consumidos bastan, se compacta
+            if (live + size > capacity) {
+                return false;
+            }
+            compact();
+            if (!reserve(size)) {
+                return false;
+            }
+        }
+
+        ring.putInt(tail, size);
+        ring.putInt(tail + 4, instr.getRobotId());
+        ring.put(tail + 8, STATE_PENDING);
+        ring.put(tail + 9, (byte) instr.getCommand().ordinal());
+        ring.putShort(tail + 10, (short) params.length);
+        if (name != null) {
+            ring.put(tail + HEADER_SIZE, (byte) name.length);
+            ring.put(tail + HEADER_SIZE + 1, name);
+        }
+        ring.put(tail + HEADER_SIZE + nameSize, params);
+
+        tail += size;
+        used += size;
+        live += size;
+        count++;
+        return true;
+    }
+
+    /**
+     * Deja {@code tail} apuntando a una zona libre contigua de {@code size} bytes.
+     * @return false si no hay una zona libre contigua suficiente.
+     */
+    private boolean reserve(int size) {
+        if (used == 0) {
+            head = 0;
+            tail = 0;
+        }
+
+        if (tail > head || used == 0) {
+            // Zona libre: [tail, capacity) y después [0, head)
+            if (capacity - tail < size) {
+                if (head < size) {
+                    return false;
+                }
+                int padding = capacity - tail;
+                if (padding > 0) {
+                    ring.putInt(tail, -padding);
+                    used += padding;
+                }
+                tail = 0;
+            }
+        } else if (head - tail < size) {
+            // Anillo dado la vuelta: la única zona libre es [tail, head)
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Instruction removeFirstFor(int robotId) {
+        int pos = head;
+        int remaining = used;
+        while (remaining > 0) {
+            if (pos == capacity) {
+                pos = 0;
+            }
+            int len = ring.getInt(pos);
+            if (len < 0) {
+                remaining += len;
+                pos = 0;
+                continue;
+            }
+            if (ring.get(pos + 8) == STATE_PENDING && ring.getInt(pos + 4) == robotId) {
+                Instruction instr = decode(pos);
+                ring.put(pos + 8, STATE_CONSUMED);
+                count--;
+                live -= len;
+                reclaim();
+                return instr;
+            }
+            pos += len;
+            remaining -= len;
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        head = 0;
+        tail = 0;
+        used = 0;
+        count = 0;
+        live = 0;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Bytes ocupados actualmente en el anillo (incluye relleno y huecos aún no recuperados).
+     * @return int con los bytes en uso.
+     */
+    public int usedBytes() {
+        return used;
+    }
+
+    private Instruction decode(int pos) {
+        int robotId = ring.getInt(pos + 4);
+        CommandType command = COMMANDS[ring.get(pos + 9)];
+        int offset = pos + HEADER_SIZE;
+        String name = command.name();
+        if (command == CommandType.CUSTOM) {
+            byte[] nameBytes = new byte[Byte.toUnsignedInt(ring.get(offset))];
+            ring.get(offset + 1, nameBytes);
+            name = new String(nameBytes, StandardCharsets.UTF_8);
+            offset += 1 + nameBytes.length;
+        }
+        byte[] params = new byte[Short.toUnsignedInt(ring.getShort(pos + 10))];
+        ring.get(offset, params);
+        return new Instruction(robotId, command, name, new String(params, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Avanza la cabeza sobre los registros consumidos y el relleno para liberar su espacio.
+     */
+    private void reclaim() {
+        while (used > 0) {
+            if (head == capacity) {
+                head = 0;
+            }
+            int len = ring.getInt(head);
+            if (len < 0) {
+                used += len;
+                head = 0;
+                continue;
+            }
+            if (ring.get(head + 8) == STATE_PENDING) {
+                return;
+            }
+            used -= len;
+            head += len;
+        }
+        head = 0;
+        tail = 0;
+    }
+
+    /**
+     * Copia los registros pendientes, en orden, al principio del anillo y descarta
+     * los consumidos y el relleno.
+     * <p>
+     * Primero se rota el anillo para que la cabeza quede en la posición 0 (así el relleno
+     * pasa a ser un hueco intermedio de longitud conocida) y después cada registro pendiente
+     * se desliza hacia el principio. El destino nunca adelanta al origen, por lo que copiar
+     * hacia delante por bloques no pisa datos aún no movidos.
+     * </p>
+     */
+    private void compact() {
+        if (chunk == null) {
+            chunk = new byte[Math.min(CHUNK_SIZE, capacity)];
+            otherChunk = new byte[chunk.length];
+        }
+        if (head != 0) {
+            // Rotación a la izquierda de 'head' bytes mediante tres inversiones
+            reverse(0, head);
+            reverse(head, capacity);
+            reverse(0, capacity);
+        }
+
+        int pos = 0;
+        int dst = 0;
+        while (pos < used) {
+            int len = ring.getInt(pos);
+            if (len < 0) {
+                pos -= len; // Antiguo relleno: hueco hasta el siguiente registro
+                continue;
+            }
+            if (ring.get(pos + 8) == STATE_PENDING) {
+                move(pos, dst, len);
+                dst += len;
+            }
+            pos += len;
+        }
+        head = 0;
+        tail = dst;
+        used = dst;
+    }
+
+    /**
+     * Copia {@code length} bytes de {@code from} a {@code to} (con {@code to <= from}).
+     */
+    private void move(int from, int to, int length) {
+        if (from == to) {
+            return;
+        }
+        for (int done = 0; done < length; ) {
+            int n = Math.min(chunk.length, length - done);
+            ring.get(from + done, chunk, 0, n);
+            ring.put(to + done, chunk, 0, n);
+            done += n;
+        }
+    }
+
+    /**
+     * Invierte el orden de los bytes en [from, to), intercambiando bloques de los extremos.
+     */
+    private void reverse(int from, int to) {
+        int low = from;
+        int high = to;
+        while (high - low > 1) {
+            int n = Math.min(chunk.length, (high - low) / 2);
+            ring.get(low, chunk, 0, n);
+            ring.get(high - n, otherChunk, 0, n);
+            reverseArray(chunk, n);
+            reverseArray(otherChunk, n);
+            ring.put(low, otherChunk, 0, n);
+            ring.put(high - n, chunk, 0, n);
+            low += n;
+            high -= n;
+        }
+    }
+
+    private static void reverseArray(byte[] bytes, int length) {
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            byte b = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = b;
+        }
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+}
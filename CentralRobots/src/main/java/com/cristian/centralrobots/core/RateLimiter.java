@@ -0,0 +1,152 @@
+package com.cristian.centralrobots.core;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limitador de tasa de mensajes compartido por todos los clientes del servidor.
+ * <p>
+ * Aplica tres niveles de {@link TokenBucket}, cada uno opcional:
+ * </p>
+ * <ul>
+ * <li><strong>Por conexión:</strong> el cubo lo guarda el propio hilo del cliente
+ * (ver {@link #newConnectionBucket()}) y desaparece con él.</li>
+ * <li><strong>Por IP de origen:</strong> varias conexiones desde el mismo panel comparten cubo.</li>
+ * <li><strong>Por robot destino:</strong> ningún robot puede recibir más órdenes de las que admite,
+ * vengan de donde vengan.</li>
+ * </ul>
+ * <strong>Decisión de Diseño (Memoria):</strong>
+ * Los cubos por IP y por robot viven en mapas concurrentes. Periódicamente se eliminan los que
+ * están llenos (clientes inactivos), ya que un cubo lleno equivale a uno recién creado.
+ * Así la memoria queda acotada por los clientes activos, no por los que alguna vez se conectaron.
+ */
+public class RateLimiter {
+
+    // Cada cuánto se revisan los mapas en busca de cubos inactivos
+    private static final long EVICTION_INTERVAL_NANOS = 10_000_000_000L;
+
+    private final Limit perConnection;
+    private final Limit perIp;
+    private final Limit perRobot;
+
+    private final Map<InetAddress, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<Integer, TokenBucket> robotBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextEviction = new AtomicLong(System.nanoTime() + EVICTION_INTERVAL_NANOS);
+
+    /**
+     * Constructor del limitador. Cualquier nivel puede ser {@code null} para no limitarlo.
+     * @param perConnection Límite para cada conexión individual.
+     * @param perIp Límite compartido por las conexiones de una misma IP.
+     * @param perRobot Límite de órdenes hacia cada robot.
+     */
+    public RateLimiter(Limit perConnection, Limit perIp, Limit perRobot) {
+        this.perConnection = perConnection;
+        this.perIp = perIp;
+        this.perRobot = perRobot;
+    }
+
+    /**
+     * Crea el cubo privado de una nueva conexión.
+     * @return Un cubo nuevo, o {@code null} si no hay límite por conexión.
+     */
+    public TokenBucket newConnectionBucket() {
+        return perConnection == null ? null : perConnection.newBucket();
+    }
+
+    /**
+     * Consume una ficha del cubo asociado a una IP de origen.
+     * @param address Dirección del cliente.
+     * @return true si el mensaje está permitido.
+     */
+    public boolean tryAcquireIp(InetAddress address) {
+        return tryAcquireIp(address, System.nanoTime());
+    }
+
+    /**
+     * Consume una ficha del cubo asociado a una IP de origen en un instante dado.
+     * @param address Dirección del cliente.
+     * @param now Instante actual en nanosegundos ({@link System#nanoTime()}).
+     * @return true si el mensaje está permitido.
+     */
+    public boolean tryAcquireIp(InetAddress address, long now) {
+        if (perIp == null) {
+            return true;
+        }
+        evictIdle(now);
+        return ipBuckets.computeIfAbsent(address, a -> perIp.newBucket()).tryAcquire(now);
+    }
+
+    /**
+     * Consume una ficha del cubo asociado a un robot destino. El ID debe corresponder a un
+     * robot existente: cada ID distinto crea un cubo.
+     * @param robotId ID del robot destino.
+     * @return true si el mensaje está permitido.
+     */
+    public boolean tryAcquireRobot(int robotId) {
+        return tryAcquireRobot(robotId, System.nanoTime());
+    }
+
+    /**
+     * Consume una ficha del cubo asociado a un robot destino en un instante dado.
+     * @param robotId ID del robot destino.
+     * @param now Instante actual en nanosegundos ({@link System#nanoTime()}).
+     * @return true si el mensaje está permitido.
+     */
+    public boolean tryAcquireRobot(int robotId, long now) {
+        if (perRobot == null) {
+            return true;
+        }
+        evictIdle(now);
+        return robotBuckets.computeIfAbsent(robotId, id -> perRobot.newBucket()).tryAcquire(now);
+    }
+
+    /**
+     * Elimina los cubos llenos si ha pasado el intervalo de revisión.
+     * Solo el hilo que gana el CAS realiza la limpieza; el resto continúa sin esperar.
+     * @param now Instante actual en nanosegundos.
+     */
+    void evictIdle(long now) {
+        long scheduled = nextEviction.get();
+        if (now - scheduled < 0 || !nextEviction.compareAndSet(scheduled, now + EVICTION_INTERVAL_NANOS)) {
+            return;
+        }
+        ipBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        robotBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * Número de cubos por IP y por robot que se mantienen en memoria.
+     * @return int con el total de cubos compartidos.
+     */
+    public int trackedBuckets() {
+        return ipBuckets.size() + robotBuckets.size();
+    }
+
+    /**
+     * Configuración inmutable de un nivel de limitación.
+     */
+    public static class Limit {
+
+        private final double ratePerSecond;
+        private final int burst;
+
+        /**
+         * Constructor del límite.
+         * @param ratePerSecond Mensajes por segundo sostenidos.
+         * @param burst Ráfaga máxima de mensajes seguidos.
+         */
+        public Limit(double ratePerSecond, int burst) {
+            if (ratePerSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("La tasa y la rafaga deben ser positivas");
+            }
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+
+        TokenBucket newBucket() {
+            return new TokenBucket(ratePerSecond, burst);
+        }
+    }
+}
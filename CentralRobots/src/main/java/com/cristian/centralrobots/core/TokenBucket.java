@@ -0,0 +1,76 @@
+package com.cristian.centralrobots.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cubo de fichas (Token Bucket) sin bloqueos para limitar la tasa de mensajes.
+ * <p>
+ * <strong>Decisión de Diseño (Concurrencia):</strong>
+ * En lugar de guardar fichas y marca de tiempo por separado (lo que exigiría un cerrojo),
+ * se guarda un único instante teórico en un {@link AtomicLong}: el momento en que el cubo
+ * volvería a estar lleno. Cada petición lo desplaza un intervalo de emisión mediante CAS.
+ * Es equivalente a un cubo de capacidad {@code burst} que se rellena a {@code ratePerSecond}.
+ * </p>
+ */
+public class TokenBucket {
+
+    // Valor inicial: el cubo nunca se ha usado (lleno)
+    private static final long NEVER_USED = Long.MIN_VALUE;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+
+    // Instante (nanoTime) en el que el cubo estaría lleno de nuevo
+    private final AtomicLong fullAt;
+
+    /**
+     * Constructor del cubo.
+     * @param ratePerSecond Fichas repuestas por segundo.
+     * @param burst Capacidad máxima del cubo (ráfaga permitida).
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("La tasa y la rafaga deben ser positivas");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.fullAt = new AtomicLong(NEVER_USED);
+    }
+
+    /**
+     * Intenta consumir una ficha usando el reloj del sistema.
+     * @return true si se permite el mensaje, false si se ha superado el límite.
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * Intenta consumir una ficha en un instante dado.
+     * @param now Instante actual en nanosegundos (misma base que {@link System#nanoTime()}).
+     * @return true si se permite el mensaje, false si se ha superado el límite.
+     */
+    public boolean tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = (current == NEVER_USED || current - now < 0 ? now : current) + intervalNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Indica si el cubo está lleno, es decir, si no guarda información de consumos recientes.
+     * Un cubo lleno es indistinguible de uno nuevo y puede descartarse sin perder estado.
+     * @param now Instante actual en nanosegundos.
+     * @return true si el cubo tiene todas sus fichas.
+     */
+    public boolean isFull(long now) {
+        long current = fullAt.get();
+        return current == NEVER_USED || current - now <= 0;
+    }
+}
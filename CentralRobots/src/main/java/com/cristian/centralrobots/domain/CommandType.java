@@ -31,5 +31,10 @@ public enum CommandType {
 
     /** * Valor por defecto para gestionar comandos no reconocidos o erróneos. 
      */
-    UNKNOWN
+    UNKNOWN,
+
+    /** * Comando definido por configuración en el {@code CommandRegistry}; su nombre real
+     * se obtiene con {@link Instruction#getCommandName()}. 
+     */
+    CUSTOM
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ public class Instruction {
 
     private final int robotId;
     private final CommandType command;
+    private final String commandName;
     private final String params;
 
     /**
@@ -19,8 +20,20 @@ public class Instruction {
      * @param params Parámetros adicionales (ej: "10", "LEFT"). Puede ser cadena vacía.
      */
     public Instruction(int robotId, CommandType command, String params) {
+        this(robotId, command, command.name(), params);
+    }
+
+    /**
+     * Constructor para comandos con nombre propio (ej: comandos {@link CommandType#CUSTOM}).
+     * @param robotId Identificador numérico del robot al que va dirigida.
+     * @param command Tipo de comando (enum).
+     * @param commandName Nombre del comando tal y como está registrado.
+     * @param params Parámetros adicionales. Puede ser cadena vacía.
+     */
+    public Instruction(int robotId, CommandType command, String commandName, String params) {
         this.robotId = robotId;
         this.command = command;
+        this.commandName = commandName;
         this.params = params;
     }
 
@@ -40,6 +53,14 @@ public class Instruction {
         return command;
     }
 
+    /**
+     * Obtiene el nombre del comando (coincide con el enum salvo en comandos configurados).
+     * @return String con el nombre del comando.
+     */
+    public String getCommandName() {
+        return commandName;
+    }
+
     /**
      * Obtiene los parámetros de la instrucción.
      * @return String con los parámetros o cadena vacía si no hay.
@@ -50,6 +71,6 @@ public class Instruction {
 
     @Override
     public String toString() {
-        return "Instruction{robot=" + robotId + ", cmd=" + command + ", params='" + params + "'}";
+        return "Instruction{robot=" + robotId + ", cmd=" + commandName + ", params='" + params + "'}";
     }
 }
\ No newline at end of file
@@ -0,0 +1,254 @@
+package com.cristian.centralrobots.robots;
+
+import com.cristian.centralrobots.core.CommandRegistry;
+import com.cristian.centralrobots.domain.CommandType;
+import com.cristian.centralrobots.domain.Instruction;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Simulación de eventos discretos de la flota de robots en tiempo virtual.
+ * <p>
+ * Reproduce el comportamiento del {@link com.cristian.centralrobots.core.InstructionBox}
+ * (cada robot atiende sus instrucciones en orden de llegada, una a una) sin hilos ni esperas:
+ * los eventos de llegada y de fin de tarea se procesan en orden temporal en un único hilo.
+ * Con la misma semilla, el resultado es siempre idéntico, lo que permite comparar
+ * cambios de planificación de forma determinista.
+ * </p>
+ * El tiempo de servicio de cada instrucción se elige igual que en {@link Robot}: el modelo
+ * del comando en el {@link CommandRegistry} si lo define, y si no el de la simulación.
+ * <p>
+ * <strong>Limitación:</strong> la simulación no ejecuta el código del buzón, sino que modela
+ * por su cuenta la misma política (una cola FIFO por robot). Sirve para comparar cargas,
+ * modelos de servicio y número de robots; un cambio en la planificación real
+ * ({@code InstructionBox} o un {@code InstructionStore}) no se refleja aquí hasta que se
+ * reproduce también en esta clase.
+ * </p>
+ */
+public class FleetSimulation {
+
+    private final ServiceTimeModel serviceTimeModel;
+    private final long seed;
+    private final CommandRegistry commandRegistry;
+
+    // Eventos pendientes, ordenados por instante y, a igualdad, por orden de creación
+    private final PriorityQueue<Event> events = new PriorityQueue<>(
+            Comparator.comparingLong((Event e) -> e.time).thenComparingLong(e -> e.sequence));
+    private final Map<Integer, RobotState> robots = new TreeMap<>();
+    private long sequence;
+
+    /**
+     * Constructor de la simulación con el registro de comandos por defecto.
+     * @param serviceTimeModel Modelo por defecto, para comandos que no definen el suyo.
+     * @param seed Semilla base; cada robot usa su propio generador derivado de ella.
+     */
+    public FleetSimulation(ServiceTimeModel serviceTimeModel, long seed) {
+        this(serviceTimeModel, seed, CommandRegistry.getDefault());
+    }
+
+    /**
+     * Constructor completo de la simulación.
+     * @param serviceTimeModel Modelo por defecto, para comandos que no definen el suyo.
+     * @param seed Semilla base; cada robot usa su propio generador derivado de ella.
+     * @param commandRegistry Registro donde buscar el modelo de cada comando.
+     */
+    public FleetSimulation(ServiceTimeModel serviceTimeModel, long seed, CommandRegistry commandRegistry) {
+        this.serviceTimeModel = serviceTimeModel;
+        this.seed = seed;
+        this.commandRegistry = commandRegistry;
+    }
+
+    /**
+     * Programa la llegada de una instrucción a la central.
+     * @param arrivalMillis Instante de llegada en tiempo virtual (ms).
+     * @param instruction La instrucción recibida.
+     */
+    public void schedule(long arrivalMillis, Instruction instruction) {
+        events.add(new Event(arrivalMillis, sequence++, instruction, null));
+    }
+
+    /**
+     * Ejecuta todos los eventos programados hasta vaciar las colas.
+     * @return Estadísticas de la simulación.
+     */
+    public Result run() {
+        Result result = new Result();
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            result.endMillis = event.time;
+
+            if (event.completed == null) {
+                // Llegada: se encola en su robot y, si está libre, empieza a trabajar
+                RobotState robot = robots.computeIfAbsent(event.instruction.getRobotId(), RobotState::new);
+                robot.queue.add(event);
+                if (!robot.busy) {
+                    startNext(robot, event.time, result);
+                }
+            } else {
+                // Fin de tarea: el robot queda libre para la siguiente de su cola
+                RobotState robot = event.completed;
+                robot.busy = false;
+                result.completed++;
+                result.totalSojournMillis += event.time - event.arrival;
+                startNext(robot, event.time, result);
+            }
+        }
+        for (RobotState robot : robots.values()) {
+            result.busyMillisByRobot.put(robot.id, robot.busyMillis);
+        }
+        return result;
+    }
+
+    private void startNext(RobotState robot, long now, Result result) {
+        Event next = robot.queue.poll();
+        if (next == null) {
+            return;
+        }
+        long wait = now - next.time;
+        result.totalWaitMillis += wait;
+        result.maxWaitMillis = Math.max(result.maxWaitMillis, wait);
+
+        CommandRegistry.CommandDefinition command = commandRegistry.lookup(next.instruction.getCommandName());
+        ServiceTimeModel model = (command != null && command.getServiceTimeModel() != null)
+                ? command.getServiceTimeModel() : serviceTimeModel;
+        long service = model.nextServiceMillis(next.instruction, robot.random);
+        robot.busy = true;
+        robot.busyMillis += service;
+
+        Event done = new Event(now + service, sequence++, next.instruction, robot);
+        done.arrival = next.time;
+        events.add(done);
+    }
+
+    /**
+     * Punto de entrada para simular una carga sintética desde consola.
+     * <p>
+     * Argumentos: {@code ROBOTS INSTRUCCIONES MEDIA_ENTRE_LLEGADAS_MS MODELO SEMILLA}.
+     * Ejemplo: {@code 3 100000 400 uniform:500:1500 42}.
+     * </p>
+     * @param args Argumentos de línea de comandos.
+     */
+    public static void main(String[] args) {
+        int numRobots = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int numInstructions = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        double meanInterarrival = args.length > 2 ? Double.parseDouble(args[2]) : 400;
+        ServiceTimeModel model = args.length > 3 ? ServiceTimeModel.parse(args[3]) : ServiceTimeModel.defaultModel();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+
+        FleetSimulation simulation = new FleetSimulation(model, seed);
+        Random arrivals = new Random(seed);
+        long t = 0;
+        for (int i = 0; i < numInstructions; i++) {
+            t += Math.round(-meanInterarrival * Math.log(1.0 - arrivals.nextDouble()));
+            simulation.schedule(t, new Instruction(1 + arrivals.nextInt(numRobots), CommandType.MOVE, ""));
+        }
+
+        long start = System.nanoTime();
+        Result result = simulation.run();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println(result);
+        System.out.println("Simulados " + result.getEndMillis() / 1000 + " s virtuales en " + elapsedMs + " ms reales");
+    }
+
+    /**
+     * Estadísticas de una ejecución de la simulación.
+     */
+    public static class Result {
+
+        private long completed;
+        private long endMillis;
+        private long totalWaitMillis;
+        private long maxWaitMillis;
+        private long totalSojournMillis;
+        private final Map<Integer, Long> busyMillisByRobot = new TreeMap<>();
+
+        /**
+         * @return Número de instrucciones completadas.
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return Instante virtual (ms) en el que termina la última tarea.
+         */
+        public long getEndMillis() {
+            return endMillis;
+        }
+
+        /**
+         * @return Espera media en cola antes de empezar a ejecutarse (ms).
+         */
+        public double getMeanWaitMillis() {
+            return completed == 0 ? 0 : (double) totalWaitMillis / completed;
+        }
+
+        /**
+         * @return Máxima espera en cola observada (ms).
+         */
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        /**
+         * @return Tiempo medio desde la llegada hasta el fin de la tarea (ms).
+         */
+        public double getMeanSojournMillis() {
+            return completed == 0 ? 0 : (double) totalSojournMillis / completed;
+        }
+
+        /**
+         * @return Tiempo total de trabajo de cada robot (ms), por ID.
+         */
+        public Map<Integer, Long> getBusyMillisByRobot() {
+            return busyMillisByRobot;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Result{completadas=%d, fin=%d ms, esperaMedia=%.1f ms, esperaMax=%d ms, "
+                    + "estanciaMedia=%.1f ms, ocupacion=%s}", completed, endMillis, getMeanWaitMillis(),
+                    maxWaitMillis, getMeanSojournMillis(), busyMillisByRobot);
+        }
+    }
+
+    /**
+     * Evento de la simulación: llegada ({@code completed == null}) o fin de tarea de un robot.
+     */
+    private static class Event {
+        private final long time;
+        private final long sequence;
+        private final Instruction instruction;
+        private final RobotState completed;
+        private long arrival;
+
+        Event(long time, long sequence, Instruction instruction, RobotState completed) {
+            this.time = time;
+            this.sequence = sequence;
+            this.instruction = instruction;
+            this.completed = completed;
+        }
+    }
+
+    /**
+     * Estado simulado de un robot: su cola FIFO, si está ocupado y su generador aleatorio.
+     */
+    private class RobotState {
+        private final int id;
+        private final Deque<Event> queue = new ArrayDeque<>();
+        private final Random random;
+        private boolean busy;
+        private long busyMillis;
+
+        RobotState(int id) {
+            this.id = id;
+            this.random = new Random(seed * 31 + id);
+        }
+    }
+}
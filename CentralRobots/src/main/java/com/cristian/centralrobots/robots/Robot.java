@@ -1,5 +1,6 @@
 package com.cristian.centralrobots.robots;
 
+import com.cristian.centralrobots.core.CommandRegistry;
 import com.cristian.centralrobots.core.InstructionBox;
 import com.cristian.centralrobots.domain.Instruction;
 import java.util.Random;
@@ -13,7 +14,7 @@ import java.util.logging.Logger;
  * </p>
  * <ul>
  * <li>Consultar continuamente el buzón en busca de instrucciones para su ID.</li>
- * <li>Simular la ejecución de la tarea (tiempo de espera).</li>
+ * <li>Simular la ejecución de la tarea (tiempo de servicio según su {@link ServiceTimeModel}).</li>
  * <li>Finalizar su ejecución de forma limpia cuando el sistema se apaga.</li>
  * </ul>
  */
@@ -23,17 +24,46 @@ public class Robot implements Runnable {
 
     private final int id;
     private final InstructionBox instructionBox;
+    private final ServiceTimeModel serviceTimeModel;
     private final Random random;
+    private final CommandRegistry commandRegistry;
 
     /**
-     * Constructor del Robot.
+     * Constructor del Robot con el comportamiento por defecto (tiempo real, 500-1500 ms por tarea).
      * @param id Identificador único del robot.
      * @param instructionBox Referencia al buzón compartido para obtener tareas.
      */
     public Robot(int id, InstructionBox instructionBox) {
+        this(id, instructionBox, ServiceTimeModel.defaultModel(), new Random());
+    }
+
+    /**
+     * Constructor del Robot con modelo de tiempo configurable.
+     * @param id Identificador único del robot.
+     * @param instructionBox Referencia al buzón compartido para obtener tareas.
+     * @param serviceTimeModel Modelo que decide cuánto tarda cada instrucción.
+     * @param random Generador aleatorio del robot (con semilla para resultados reproducibles).
+     */
+    public Robot(int id, InstructionBox instructionBox, ServiceTimeModel serviceTimeModel, Random random) {
+        this(id, instructionBox, serviceTimeModel, random, CommandRegistry.getDefault());
+    }
+
+    /**
+     * Constructor completo del Robot. El robot se da de alta en el buzón como consumidor de su ID.
+     * @param id Identificador único del robot.
+     * @param instructionBox Referencia al buzón compartido para obtener tareas.
+     * @param serviceTimeModel Modelo por defecto, para comandos que no definen el suyo.
+     * @param random Generador aleatorio del robot (con semilla para resultados reproducibles).
+     * @param commandRegistry Registro donde buscar el manejador y el modelo de cada comando.
+     */
+    public Robot(int id, InstructionBox instructionBox, ServiceTimeModel serviceTimeModel,
+            Random random, CommandRegistry commandRegistry) {
         this.id = id;
         this.instructionBox = instructionBox;
-        this.random = new Random();
+        this.serviceTimeModel = serviceTimeModel;
+        this.random = random;
+        this.commandRegistry = commandRegistry;
+        instructionBox.registerRobot(id);
     }
 
     /**
@@ -63,18 +93,37 @@ public class Robot implements Runnable {
     }
 
     /**
-     * Simula la ejecución física de una instrucción mediante un retardo aleatorio.
+     * Simula la ejecución física de una instrucción durmiendo su tiempo de servicio
+     * y, al terminar, ejecuta el manejador registrado para el comando. Un fallo del manejador
+     * (código cargado desde la configuración) se registra y no detiene al robot.
      * @param instruction La instrucción a ejecutar.
      * @throws InterruptedException Si se interrumpe la simulación del tiempo de trabajo.
      */
     public void executeInstruction(Instruction instruction) throws InterruptedException { // <-- AHORA ES PUBLIC
         logger.log(Level.INFO, "Robot {0} PROCESANDO: {1} [{2}]", 
-                new Object[]{id, instruction.getCommand(), instruction.getParams()});
+                new Object[]{id, instruction.getCommandName(), instruction.getParams()});
 
-        int simulationTime = 500 + random.nextInt(1000);
+        // El comando pudo eliminarse al recargar la configuración mientras estaba en cola
+        CommandRegistry.CommandDefinition command = commandRegistry.lookup(instruction.getCommandName());
+        ServiceTimeModel model = (command != null && command.getServiceTimeModel() != null)
+                ? command.getServiceTimeModel() : serviceTimeModel;
+
+        long simulationTime = model.nextServiceMillis(instruction, random);
         Thread.sleep(simulationTime);
 
+        if (command != null) {
+            try {
+                command.getHandler().execute(id, instruction);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Robot " + id + ": fallo del manejador de " 
+                        + instruction.getCommandName(), e);
+            }
+        } else {
+            logger.log(Level.WARNING, "Robot {0}: comando {1} ya no esta registrado", 
+                    new Object[]{id, instruction.getCommandName()});
+        }
+
         logger.log(Level.INFO, "Robot {0} FIN TAREA: {1}", 
-                new Object[]{id, instruction.getCommand()});
+                new Object[]{id, instruction.getCommandName()});
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.cristian.centralrobots.robots;
+
+import com.cristian.centralrobots.domain.Instruction;
+import java.util.Random;
+
+/**
+ * Modelo del tiempo de servicio que tarda un robot en ejecutar una instrucción.
+ * <p>
+ * El modelo no guarda estado aleatorio propio: recibe el {@link Random} del robot que lo usa.
+ * Así un mismo modelo puede compartirse entre robots y, con semillas fijas, cada robot
+ * produce siempre la misma secuencia de tiempos.
+ * </p>
+ */
+@FunctionalInterface
+public interface ServiceTimeModel {
+
+    /**
+     * Calcula la duración de la siguiente ejecución.
+     * @param instruction La instrucción que se va a ejecutar.
+     * @param random Generador aleatorio del robot.
+     * @return Tiempo de servicio en milisegundos (nunca negativo).
+     */
+    long nextServiceMillis(Instruction instruction, Random random);
+
+    /**
+     * Tiempo fijo para todas las instrucciones.
+     * @param millis Duración en milisegundos.
+     * @return El modelo.
+     * @throws IllegalArgumentException Si la duración es negativa.
+     */
+    static ServiceTimeModel fixed(long millis) throws IllegalArgumentException {
+        requireNonNegative(millis);
+        return (instruction, random) -> millis;
+    }
+
+    /**
+     * Tiempo uniforme en el intervalo [min, max).
+     * @param minMillis Duración mínima en milisegundos.
+     * @param maxMillis Duración máxima (excluida) en milisegundos.
+     * @return El modelo.
+     * @throws IllegalArgumentException Si alguna duración es negativa.
+     */
+    static ServiceTimeModel uniform(long minMillis, long maxMillis) throws IllegalArgumentException {
+        requireNonNegative(minMillis);
+        requireNonNegative(maxMillis);
+        if (maxMillis <= minMillis) {
+            return fixed(minMillis);
+        }
+        return (instruction, random) -> minMillis + random.nextLong(maxMillis - minMillis);
+    }
+
+    /**
+     * Tiempo exponencial (servicio sin memoria, típico en teoría de colas).
+     * @param meanMillis Duración media en milisegundos.
+     * @return El modelo.
+     * @throws IllegalArgumentException Si la media es negativa o no es un número finito.
+     */
+    static ServiceTimeModel exponential(double meanMillis) throws IllegalArgumentException {
+        if (!(meanMillis >= 0) || Double.isInfinite(meanMillis)) {
+            throw new IllegalArgumentException("Duracion media invalida: " + meanMillis);
+        }
+        return (instruction, random) -> Math.round(-meanMillis * Math.log(1.0 - random.nextDouble()));
+    }
+
+    /**
+     * Modelo por defecto del sistema: entre 500 y 1500 ms.
+     * @return El modelo.
+     */
+    static ServiceTimeModel defaultModel() {
+        return uniform(500, 1500);
+    }
+
+    /**
+     * Construye un modelo a partir de su especificación textual.
+     * <p>
+     * Formatos admitidos: {@code fixed:MS}, {@code uniform:MIN:MAX}, {@code exp:MEDIA}.
+     * </p>
+     * @param spec Especificación del modelo.
+     * @return El modelo.
+     * @throws IllegalArgumentException Si la especificación no es válida o alguna duración es negativa.
+     */
+    static ServiceTimeModel parse(String spec) throws IllegalArgumentException {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0].toLowerCase()) {
+                case "fixed":
+                    return fixed(Long.parseLong(parts[1]));
+                case "uniform":
+                    return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                case "exp":
+                    return exponential(Double.parseDouble(parts[1]));
+                default:
+                    break;
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // Se informa abajo con el mensaje común
+        }
+        throw new IllegalArgumentException("Modelo de tiempo de servicio invalido: " + spec);
+    }
+
+    private static void requireNonNegative(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("El tiempo de servicio no puede ser negativo: " + millis);
+        }
+    }
+}
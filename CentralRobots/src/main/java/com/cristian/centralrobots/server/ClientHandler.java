@@ -1,7 +1,10 @@
 package com.cristian.centralrobots.server;
 
 import com.cristian.centralrobots.core.InstructionBox;
+import com.cristian.centralrobots.core.CommandRegistry;
 import com.cristian.centralrobots.core.InstructionParser;
+import com.cristian.centralrobots.core.RateLimiter;
+import com.cristian.centralrobots.core.TokenBucket;
 import com.cristian.centralrobots.domain.CommandType;
 import com.cristian.centralrobots.domain.Instruction;
 
@@ -20,22 +23,55 @@ import java.util.logging.Logger;
  * los valida usando {@link InstructionParser} y los deposita en el 
  * {@link InstructionBox} para que sean consumidos por los hilos de los robots.
  * </p>
+ * Si se configura un {@link RateLimiter}, los mensajes que superan el límite se rechazan
+ * con {@code ERROR|RATE_LIMITED}; los límites por conexión y por IP se comprueban antes de parsear.
+ * Si se configura un {@link TraceRecorder}, cada línea recibida se graba tal cual para
+ * poder reproducirla después con {@link TraceReplay}.
  */
 public class ClientHandler implements Runnable {
 
     private static final Logger logger = Logger.getLogger(ClientHandler.class.getName());
 
+    private static final String RATE_LIMITED = "ERROR|RATE_LIMITED";
+    private static final String UNKNOWN_COMMAND = "ERROR|" + InstructionParser.UNKNOWN_COMMAND;
+
     private final Socket clientSocket;
     private final InstructionBox instructionBox;
+    private final RateLimiter rateLimiter;
+    private final TraceRecorder traceRecorder;
 
     /**
-     * Constructor del manejador de cliente.
+     * Constructor del manejador de cliente sin limitación de tasa.
      * @param socket El socket de conexión con el cliente activo.
      * @param instructionBox El buzón compartido (Monitor) donde depositar las órdenes.
      */
     public ClientHandler(Socket socket, InstructionBox instructionBox) {
+        this(socket, instructionBox, null);
+    }
+
+    /**
+     * Constructor del manejador de cliente.
+     * @param socket El socket de conexión con el cliente activo.
+     * @param instructionBox El buzón compartido (Monitor) donde depositar las órdenes.
+     * @param rateLimiter Limitador compartido entre clientes, o {@code null} para no limitar.
+     */
+    public ClientHandler(Socket socket, InstructionBox instructionBox, RateLimiter rateLimiter) {
+        this(socket, instructionBox, rateLimiter, null);
+    }
+
+    /**
+     * Constructor del manejador de cliente con captura de tráfico.
+     * @param socket El socket de conexión con el cliente activo.
+     * @param instructionBox El buzón compartido (Monitor) donde depositar las órdenes.
+     * @param rateLimiter Limitador compartido entre clientes, o {@code null} para no limitar.
+     * @param traceRecorder Grabador de la traza de entrada, o {@code null} para no grabar.
+     */
+    public ClientHandler(Socket socket, InstructionBox instructionBox, RateLimiter rateLimiter,
+            TraceRecorder traceRecorder) {
         this.clientSocket = socket;
         this.instructionBox = instructionBox;
+        this.rateLimiter = rateLimiter;
+        this.traceRecorder = traceRecorder;
     }
 
     /**
@@ -52,16 +88,35 @@ public class ClientHandler implements Runnable {
             BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
             PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true)
         ) {
+            TokenBucket connectionBucket = (rateLimiter != null) ? rateLimiter.newConnectionBucket() : null;
+            int connectionId = (traceRecorder != null) ? traceRecorder.newConnectionId() : 0;
             String inputLine;
             while ((inputLine = in.readLine()) != null) {
+
+                if (traceRecorder != null) {
+                    traceRecorder.record(connectionId, inputLine);
+                }
                 
                 if (!instructionBox.isActive()) {
                     out.println("ERROR|El servidor se esta apagando");
                     break;
                 }
 
+                // Rechazo rápido, sin parsear, si la conexión o su IP superan el límite
+                if (rateLimiter != null
+                        && ((connectionBucket != null && !connectionBucket.tryAcquire())
+                            || !rateLimiter.tryAcquireIp(clientSocket.getInetAddress()))) {
+                    out.println(RATE_LIMITED);
+                    continue;
+                }
+
                 try {
-                    Instruction instr = InstructionParser.parse(inputLine);
+                    Instruction instr = InstructionParser.tryParse(inputLine, CommandRegistry.getDefault());
+                    if (instr == null) {
+                        out.println(UNKNOWN_COMMAND);
+                        logger.log(Level.WARNING, "Comando desconocido recibido: {0}", inputLine);
+                        continue;
+                    }
 
                     if (instr.getCommand() == CommandType.SHUTDOWN) {
                         out.println("OK|Apagando servidor...");
@@ -69,7 +124,21 @@ public class ClientHandler implements Runnable {
                         break;
                     }
 
-                    instructionBox.put(instr);
+                    // Validamos el ID antes de gastar una ficha o crear un cubo para un robot inexistente
+                    if (!instructionBox.servesRobot(instr.getRobotId())) {
+                        out.println("ERROR|No existe ningun robot con ID " + instr.getRobotId());
+                        continue;
+                    }
+
+                    if (rateLimiter != null && !rateLimiter.tryAcquireRobot(instr.getRobotId())) {
+                        out.println(RATE_LIMITED);
+                        continue;
+                    }
+
+                    if (!instructionBox.put(instr)) {
+                        out.println("ERROR|El servidor se esta apagando");
+                        break;
+                    }
                     out.println("OK|Instruccion aceptada para Robot " + instr.getRobotId());
 
                 } catch (IllegalArgumentException e) {
@@ -77,6 +146,9 @@ public class ClientHandler implements Runnable {
                     logger.log(Level.WARNING, "Mensaje invalido recibido: {0}", e.getMessage());
                 }
             }
+        } catch (InterruptedException e) {
+            logger.log(Level.WARNING, "Hilo de cliente interrumpido: {0}", clientSocket.getInetAddress());
+            Thread.currentThread().interrupt();
         } catch (IOException e) {
             logger.log(Level.INFO, "Cliente desconectado: {0}", clientSocket.getInetAddress());
         } finally {
@@ -1,10 +1,18 @@
 package com.cristian.centralrobots.server;
 
+import com.cristian.centralrobots.core.CommandRegistry;
+import com.cristian.centralrobots.core.HeapInstructionStore;
 import com.cristian.centralrobots.core.InstructionBox;
+import com.cristian.centralrobots.core.InstructionStore;
+import com.cristian.centralrobots.core.OffHeapInstructionStore;
+import com.cristian.centralrobots.core.RateLimiter;
 import com.cristian.centralrobots.robots.Robot;
+import com.cristian.centralrobots.robots.ServiceTimeModel;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Path;
+import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,20 +37,78 @@ public class RobotServer {
     private static final int PORT = 9000;
     private static final int NUM_ROBOTS = 3;
 
+    // Cola fuera del heap (opcional): -Dcentralrobots.offheap.bytes=N [-Dcentralrobots.offheap.file=ruta]
+    private static final int OFFHEAP_BYTES = Integer.getInteger("centralrobots.offheap.bytes", 0);
+    private static final String OFFHEAP_FILE = System.getProperty("centralrobots.offheap.file");
+
+    // Simulación de los robots: modelo de tiempo de servicio y semilla
+    private static final String SERVICE_MODEL = System.getProperty("centralrobots.service", "uniform:500:1500");
+    private static final Long SEED = Long.getLong("centralrobots.seed");
+
+    // Comandos adicionales (opcional, recarga en caliente): -Dcentralrobots.commands=ruta
+    private static final String COMMANDS_FILE = System.getProperty("centralrobots.commands");
+
+    // Captura del tráfico entrante (opcional): -Dcentralrobots.capture=ruta
+    private static final String CAPTURE_FILE = System.getProperty("centralrobots.capture");
+
+    // Límites de mensajes por segundo (0 = sin límite); la ráfaga permitida es un segundo de tasa
+    private static final int RATE_PER_CONNECTION = Integer.getInteger("centralrobots.rate.connection", 0);
+    private static final int RATE_PER_IP = Integer.getInteger("centralrobots.rate.ip", 0);
+    private static final int RATE_PER_ROBOT = Integer.getInteger("centralrobots.rate.robot", 0);
+
     public static void main(String[] args) {
         logger.info("Iniciando Central de Control de Robots...");
 
         // 1. Crear el Monitor (Buzón compartido)
-        InstructionBox instructionBox = new InstructionBox();
+        InstructionBox instructionBox;
+        try {
+            instructionBox = new InstructionBox(createStore());
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "No se pudo mapear el fichero de la cola " + OFFHEAP_FILE, e);
+            return;
+        }
+
+        if (COMMANDS_FILE != null) {
+            try {
+                CommandRegistry.getDefault().watch(Path.of(COMMANDS_FILE));
+                logger.log(Level.INFO, "Comandos configurados en {0} (recarga en caliente)", COMMANDS_FILE);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.log(Level.SEVERE, "No se pudo cargar el fichero de comandos " + COMMANDS_FILE, e);
+                return;
+            }
+        }
 
         // 2. Crear y arrancar los Robots (Consumidores)
+        ServiceTimeModel serviceTimeModel = ServiceTimeModel.parse(SERVICE_MODEL);
         for (int i = 1; i <= NUM_ROBOTS; i++) {
-            Robot robot = new Robot(i, instructionBox);
+            Random random = (SEED != null) ? new Random(SEED * 31 + i) : new Random();
+            Robot robot = new Robot(i, instructionBox, serviceTimeModel, random);
             new Thread(robot).start(); // Lanzamos el hilo del robot
         }
 
+        RateLimiter rateLimiter = createRateLimiter();
+
+        TraceRecorder traceRecorder = null;
+        if (CAPTURE_FILE != null) {
+            try {
+                traceRecorder = new TraceRecorder(Path.of(CAPTURE_FILE));
+                logger.log(Level.INFO, "Capturando trafico en {0}", CAPTURE_FILE);
+                // La captura suele terminar matando el proceso: volcamos lo pendiente al salir
+                TraceRecorder recorder = traceRecorder;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        recorder.close();
+                    } catch (IOException e) {
+                        logger.log(Level.WARNING, "No se pudo cerrar la captura", e);
+                    }
+                }, "trace-shutdown"));
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "No se pudo crear el fichero de captura " + CAPTURE_FILE, e);
+            }
+        }
+
         // 3. Bucle principal del servidor (Aceptar clientes)
-        try (ServerSocket serverSocket = new ServerSocket(PORT)) {
+        try (ServerSocket serverSocket = new ServerSocket(PORT); TraceRecorder recorder = traceRecorder) {
             logger.log(Level.INFO, "Servidor escuchando en el puerto {0}", PORT);
             
             while (instructionBox.isActive()) {
@@ -59,7 +125,7 @@ public class RobotServer {
                     logger.info("Nuevo cliente conectado: " + clientSocket.getInetAddress());
 
                     // Crear un hilo para atender al cliente (Productor)
-                    ClientHandler handler = new ClientHandler(clientSocket, instructionBox);
+                    ClientHandler handler = new ClientHandler(clientSocket, instructionBox, rateLimiter, recorder);
                     new Thread(handler).start();
                     
                 } catch (IOException e) {
@@ -74,4 +140,37 @@ public class RobotServer {
         
         logger.info("Servidor detenido. Bye!");
     }
-}
\ No newline at end of file
+
+    /**
+     * Elige el almacén de instrucciones según la configuración del sistema.
+     * @return Almacén en heap por defecto, o un anillo fuera del heap si se ha configurado su tamaño.
+     * @throws IOException Si no se puede mapear el fichero de respaldo.
+     */
+    private static InstructionStore createStore() throws IOException {
+        if (OFFHEAP_BYTES <= 0) {
+            return new HeapInstructionStore();
+        }
+        logger.log(Level.INFO, "Cola de instrucciones fuera del heap: {0} bytes", OFFHEAP_BYTES);
+        if (OFFHEAP_FILE != null) {
+            return OffHeapInstructionStore.mapped(Path.of(OFFHEAP_FILE), OFFHEAP_BYTES);
+        }
+        return new OffHeapInstructionStore(OFFHEAP_BYTES);
+    }
+
+    /**
+     * Construye el limitador de tasa a partir de la configuración del sistema.
+     * @return El limitador, o {@code null} si no se ha configurado ningún límite.
+     */
+    private static RateLimiter createRateLimiter() {
+        if (RATE_PER_CONNECTION <= 0 && RATE_PER_IP <= 0 && RATE_PER_ROBOT <= 0) {
+            return null;
+        }
+        logger.log(Level.INFO, "Limite de mensajes/s: conexion={0}, ip={1}, robot={2}",
+                new Object[]{RATE_PER_CONNECTION, RATE_PER_IP, RATE_PER_ROBOT});
+        return new RateLimiter(limit(RATE_PER_CONNECTION), limit(RATE_PER_IP), limit(RATE_PER_ROBOT));
+    }
+
+    private static RateLimiter.Limit limit(int ratePerSecond) {
+        return ratePerSecond > 0 ? new RateLimiter.Limit(ratePerSecond, ratePerSecond) : null;
+    }
+}
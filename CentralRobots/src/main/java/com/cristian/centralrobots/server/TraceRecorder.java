@@ -0,0 +1,332 @@
+package com.cristian.centralrobots.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Grabador de tráfico entrante en un fichero de traza binario compacto.
+ * <p>
+ * <strong>Decisión de Diseño (Rendimiento):</strong>
+ * Los hilos de cliente solo encolan la línea recibida (sin esperar nunca al disco); un único
+ * hilo escritor la vuelca al disco con un buffer grande. Si la cola se llena o el escritor ha
+ * fallado, la línea se descarta y se contabiliza en lugar de frenar al cliente.
+ * </p>
+ * Formato del fichero:
+ * <pre>
+ * cabecera: "CRTR" | versión (byte) | inicio de la captura (long, epoch ms)
+ * registro: microsegundos desde el registro anterior (varint) | ID de conexión (varint)
+ *           | longitud (varint) | línea en UTF-8
+ * </pre>
+ * Las trazas se leen con {@link #read(Path)} y se reproducen con {@link TraceReplay}.
+ */
+public class TraceRecorder implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(TraceRecorder.class.getName());
+
+    private static final byte[] MAGIC = {'C', 'R', 'T', 'R'};
+    private static final int VERSION = 1;
+    private static final int QUEUE_CAPACITY = 65_536;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Marca de fin para el hilo escritor
+    private static final Capture POISON = new Capture(0, 0, null);
+
+    private final BlockingQueue<Capture> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicInteger nextConnectionId = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final DataOutputStream out;
+    private final Thread writer;
+
+    // record() encola con el cerrojo de lectura; close() toma el de escritura para marcar el
+    // cierre, de modo que ninguna línea puede quedar en la cola detrás de la marca de fin
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+    private volatile boolean writerFailed;
+
+    /**
+     * Crea el fichero de traza y arranca el hilo escritor.
+     * @param file Ruta del fichero (se sobrescribe si existe).
+     * @throws IOException Si no se puede crear el fichero.
+     */
+    public TraceRecorder(Path file) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(System.currentTimeMillis());
+
+        this.writer = new Thread(this::writeLoop, "trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Reserva un identificador para una nueva conexión de cliente.
+     * @return ID único dentro de esta traza.
+     */
+    public int newConnectionId() {
+        return nextConnectionId.incrementAndGet();
+    }
+
+    /**
+     * Registra una línea recibida. No bloquea: si la cola está llena la línea se descarta.
+     * @param connectionId ID de la conexión que envió la línea.
+     * @param line Línea recibida tal cual.
+     */
+    public void record(int connectionId, String line) {
+        closeLock.readLock().lock();
+        try {
+            if (closed || writerFailed || !queue.offer(new Capture(System.nanoTime(), connectionId, line))) {
+                dropped.incrementAndGet();
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Número de líneas que no se pudieron grabar (cola saturada, escritor fallido o cierre).
+     * @return long con las líneas descartadas.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Vacía la cola pendiente, escribe el fichero y detiene el hilo escritor.
+     * @throws IOException Si falla el cierre del fichero.
+     */
+    @Override
+    public void close() throws IOException {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        boolean interrupted = false;
+        boolean poisoned = false;
+        while (writer.isAlive()) {
+            try {
+                if (!poisoned) {
+                    // Si el escritor ha fallado la cola puede estar llena: no esperamos indefinidamente
+                    poisoned = queue.offer(POISON, 100, TimeUnit.MILLISECONDS);
+                } else {
+                    writer.join();
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                writer.interrupt();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Lo que siga en la cola no ha llegado al fichero
+        for (Capture capture; (capture = queue.poll()) != null; ) {
+            if (capture != POISON) {
+                dropped.incrementAndGet();
+            }
+        }
+        if (dropped.get() > 0) {
+            logger.log(Level.WARNING, "Traza: {0} lineas descartadas", dropped.get());
+        }
+        out.close();
+    }
+
+    private void writeLoop() {
+        List<Capture> batch = new ArrayList<>();
+        long firstNanos = 0;
+        long previousMicros = -1;
+        int written = 0;     // Líneas del lote actual ya pasadas al buffer
+        long unflushed = 0;  // Líneas en el buffer pendientes de un flush correcto
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (written = 0; written < batch.size(); written++) {
+                    Capture capture = batch.get(written);
+                    if (capture == POISON) {
+                        out.flush();
+                        unflushed = 0;
+                        return;
+                    }
+                    if (previousMicros < 0) {
+                        firstNanos = capture.nanos;
+                        previousMicros = 0;
+                    }
+                    // Desplazamiento desde el primer registro; los relojes de cada hilo pueden
+                    // diferir mínimamente, así que nunca se escribe un delta negativo
+                    long offsetMicros = Math.max(previousMicros, (capture.nanos - firstNanos) / 1_000);
+                    long deltaMicros = offsetMicros - previousMicros;
+                    previousMicros = offsetMicros;
+                    byte[] bytes = capture.line.getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(out, deltaMicros);
+                    writeVarLong(out, capture.connectionId);
+                    writeVarLong(out, bytes.length);
+                    out.write(bytes);
+                    unflushed++;
+                }
+                batch.clear();
+                written = 0;
+                // Volcamos al disco solo cuando no queda trabajo pendiente
+                if (queue.isEmpty()) {
+                    out.flush();
+                    unflushed = 0;
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error escribiendo la traza; se detiene la captura", e);
+            writerFailed = true;
+            // Las líneas sin confirmar en disco y las del lote sin escribir cuentan como descartadas
+            dropped.addAndGet(unflushed);
+            for (Capture capture : batch.subList(written, batch.size())) {
+                if (capture != POISON) {
+                    dropped.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lee un fichero de traza completo.
+     * <p>
+     * Si el servidor se detuvo de golpe, el último registro puede haber quedado a medias:
+     * se considera el final de la traza y se descarta.
+     * </p>
+     * @param file Ruta del fichero.
+     * @return Lista de registros con su desplazamiento desde el inicio de la captura.
+     * @throws IOException Si el fichero no existe o no es una traza válida.
+     */
+    public static List<Entry> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readByte() != VERSION) {
+                throw new IOException("No es un fichero de traza valido: " + file);
+            }
+            in.readLong(); // Inicio de la captura (informativo)
+
+            List<Entry> entries = new ArrayList<>();
+            long offsetMicros = 0;
+            while (true) {
+                try {
+                    offsetMicros += readVarLong(in);
+                    int connectionId = (int) readVarLong(in);
+                    byte[] bytes = new byte[(int) readVarLong(in)];
+                    in.readFully(bytes);
+                    entries.add(new Entry(offsetMicros, connectionId, new String(bytes, StandardCharsets.UTF_8)));
+                } catch (EOFException e) {
+                    return entries; // Fin del fichero, o último registro incompleto
+                }
+            }
+        }
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Entero variable corrupto en la traza");
+    }
+
+    /**
+     * Línea pendiente de escribir, con el instante en que se recibió.
+     */
+    private static class Capture {
+        private final long nanos;
+        private final int connectionId;
+        private final String line;
+
+        Capture(long nanos, int connectionId, String line) {
+            this.nanos = nanos;
+            this.connectionId = connectionId;
+            this.line = line;
+        }
+    }
+
+    /**
+     * Registro leído de una traza.
+     */
+    public static class Entry {
+        private final long offsetMicros;
+        private final int connectionId;
+        private final String line;
+
+        /**
+         * Constructor del registro.
+         * @param offsetMicros Microsegundos desde el primer registro de la traza.
+         * @param connectionId ID de la conexión original.
+         * @param line Línea recibida.
+         */
+        public Entry(long offsetMicros, int connectionId, String line) {
+            this.offsetMicros = offsetMicros;
+            this.connectionId = connectionId;
+            this.line = line;
+        }
+
+        /**
+         * @return Microsegundos desde el primer registro de la traza.
+         */
+        public long getOffsetMicros() {
+            return offsetMicros;
+        }
+
+        /**
+         * @return ID de la conexión original.
+         */
+        public int getConnectionId() {
+            return connectionId;
+        }
+
+        /**
+         * @return Línea recibida.
+         */
+        public String getLine() {
+            return line;
+        }
+    }
+}
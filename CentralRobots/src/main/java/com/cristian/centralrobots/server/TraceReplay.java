@@ -0,0 +1,206 @@
+package com.cristian.centralrobots.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Herramienta de reproducción de trazas grabadas por {@link TraceRecorder}.
+ * <p>
+ * Cada conexión original se reproduce en su propia conexión TCP, en paralelo con las demás
+ * y respetando el orden de sus líneas. El ritmo puede ser el original, escalado o a
+ * máxima velocidad. Al terminar muestra el throughput de la captura original y el de la
+ * reproducción, la latencia de las respuestas (ACK/NACK) y la diferencia de duración.
+ * </p>
+ * Las líneas {@code SHUTDOWN} se omiten para no apagar el servidor de pruebas.
+ */
+public class TraceReplay {
+
+    /**
+     * Punto de entrada de la herramienta.
+     * <p>
+     * Argumentos: {@code TRAZA [HOST] [PUERTO] [VELOCIDAD]}. La velocidad 1 reproduce al ritmo
+     * original, 2 al doble, 0.5 a la mitad y 0 a máxima velocidad.
+     * </p>
+     * @param args Argumentos de línea de comandos.
+     * @throws Exception Si la traza no se puede leer o la reproducción falla.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Uso: TraceReplay TRAZA [HOST] [PUERTO] [VELOCIDAD]");
+            return;
+        }
+        Path trace = Path.of(args[0]);
+        String host = args.length > 1 ? args[1] : "localhost";
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 9000;
+        double speed = args.length > 3 ? Double.parseDouble(args[3]) : 1.0;
+
+        List<TraceRecorder.Entry> entries = TraceRecorder.read(trace);
+        System.out.println(replay(entries, host, port, speed));
+    }
+
+    /**
+     * Reproduce una traza contra un servidor.
+     * @param entries Registros leídos de la traza.
+     * @param host Host del servidor.
+     * @param port Puerto del servidor.
+     * @param speed Factor de velocidad (0 = máxima velocidad).
+     * @return Informe de la reproducción.
+     * @throws Exception Si alguna conexión falla.
+     */
+    public static Report replay(List<TraceRecorder.Entry> entries, String host, int port, double speed)
+            throws Exception {
+        // Agrupamos por conexión original manteniendo el orden de llegada
+        Map<Integer, List<TraceRecorder.Entry>> byConnection = new LinkedHashMap<>();
+        for (TraceRecorder.Entry entry : entries) {
+            byConnection.computeIfAbsent(entry.getConnectionId(), id -> new ArrayList<>()).add(entry);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, byConnection.size()));
+        long startNanos = System.nanoTime();
+        List<long[]> latencies = new ArrayList<>();
+        long elapsedNanos;
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (List<TraceRecorder.Entry> connection : byConnection.values()) {
+                results.add(pool.submit(() -> replayConnection(connection, host, port, speed, startNanos)));
+            }
+            for (Future<long[]> result : results) {
+                latencies.add(result.get());
+            }
+            elapsedNanos = System.nanoTime() - startNanos;
+        } finally {
+            // Si una conexión falla, el resto se interrumpe: los hilos del pool no son daemon
+            // y mantendrían viva la JVM
+            pool.shutdownNow();
+            pool.awaitTermination(1, TimeUnit.SECONDS);
+        }
+
+        long originalMicros = entries.isEmpty() ? 0 : entries.get(entries.size() - 1).getOffsetMicros();
+        long originalLines = entries.stream().filter(entry -> !isShutdown(entry.getLine())).count();
+        return new Report(byConnection.size(), merge(latencies), originalLines, originalMicros, elapsedNanos / 1_000);
+    }
+
+    /**
+     * Reproduce las líneas de una conexión y mide la latencia de cada respuesta.
+     * @return Latencias en nanosegundos de las líneas respondidas.
+     */
+    private static long[] replayConnection(List<TraceRecorder.Entry> entries, String host, int port,
+            double speed, long startNanos) throws IOException, InterruptedException {
+        long[] latencies = new long[entries.size()];
+        int answered = 0;
+        try (Socket socket = new Socket(host, port);
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+
+            for (TraceRecorder.Entry entry : entries) {
+                if (isShutdown(entry.getLine())) {
+                    continue;
+                }
+                if (speed > 0) {
+                    long dueNanos = startNanos + (long) (entry.getOffsetMicros() * 1_000 / speed);
+                    long waitNanos = dueNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    }
+                }
+                long sent = System.nanoTime();
+                out.println(entry.getLine());
+                if (in.readLine() == null) {
+                    break; // El servidor cerró la conexión
+                }
+                latencies[answered++] = System.nanoTime() - sent;
+            }
+        }
+        return Arrays.copyOf(latencies, answered);
+    }
+
+    private static boolean isShutdown(String line) {
+        String[] parts = line.split("\\|");
+        return parts.length > 1 && parts[1].trim().equalsIgnoreCase("SHUTDOWN");
+    }
+
+    private static long[] merge(List<long[]> parts) {
+        long[] all = parts.stream().flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(all);
+        return all;
+    }
+
+    /**
+     * Resultado de una reproducción.
+     */
+    public static class Report {
+
+        private final int connections;
+        private final long[] sortedLatenciesNanos;
+        private final long originalLines;
+        private final long originalMicros;
+        private final long replayMicros;
+
+        Report(int connections, long[] sortedLatenciesNanos, long originalLines, long originalMicros,
+                long replayMicros) {
+            this.connections = connections;
+            this.sortedLatenciesNanos = sortedLatenciesNanos;
+            this.originalLines = originalLines;
+            this.originalMicros = originalMicros;
+            this.replayMicros = replayMicros;
+        }
+
+        /**
+         * @return Número de líneas enviadas y respondidas.
+         */
+        public int getAnswered() {
+            return sortedLatenciesNanos.length;
+        }
+
+        /**
+         * @return Líneas respondidas por segundo durante la reproducción.
+         */
+        public double getThroughput() {
+            return replayMicros == 0 ? 0 : getAnswered() * 1_000_000.0 / replayMicros;
+        }
+
+        /**
+         * @return Líneas por segundo que recibió el servidor durante la captura original.
+         */
+        public double getOriginalThroughput() {
+            return originalMicros == 0 ? 0 : originalLines * 1_000_000.0 / originalMicros;
+        }
+
+        /**
+         * Percentil de latencia de las respuestas.
+         * @param percentile Percentil entre 0 y 100.
+         * @return Latencia en microsegundos.
+         */
+        public long getLatencyMicros(double percentile) {
+            if (sortedLatenciesNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatenciesNanos.length) - 1;
+            return sortedLatenciesNanos[Math.max(0, Math.min(index, sortedLatenciesNanos.length - 1))] / 1_000;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Reproduccion: %d conexiones, %d respuestas%n"
+                    + "Throughput: original=%.1f lineas/s, reproduccion=%.1f lineas/s%n"
+                    + "Latencia (us): p50=%d p90=%d p99=%d max=%d%n"
+                    + "Duracion: original=%d ms, reproduccion=%d ms, diferencia=%+d ms",
+                    connections, getAnswered(), getOriginalThroughput(), getThroughput(),
+                    getLatencyMicros(50), getLatencyMicros(90), getLatencyMicros(99), getLatencyMicros(100),
+                    originalMicros / 1_000, replayMicros / 1_000, (replayMicros - originalMicros) / 1_000);
+        }
+    }
+}
@@ -1,16 +1,36 @@
 package com.cristian.centralrobots;
 
 import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import com.cristian.centralrobots.core.CommandHandler;
+import com.cristian.centralrobots.core.CommandRegistry;
 import com.cristian.centralrobots.core.InstructionParser;
 import com.cristian.centralrobots.core.InstructionBox;
+import com.cristian.centralrobots.core.OffHeapInstructionStore;
+import com.cristian.centralrobots.core.RateLimiter;
+import com.cristian.centralrobots.core.TokenBucket;
 import com.cristian.centralrobots.domain.Instruction;
 import com.cristian.centralrobots.domain.CommandType;
+import com.cristian.centralrobots.robots.FleetSimulation;
+import com.cristian.centralrobots.robots.Robot;
+import com.cristian.centralrobots.robots.ServiceTimeModel;
 import com.cristian.centralrobots.server.ClientHandler;
+import com.cristian.centralrobots.server.TraceRecorder;
 import java.io.*;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Suite de pruebas automatizadas para la validación del sistema de control de robots.
@@ -75,6 +95,341 @@ public class RobotSystemTest {
         assertEquals(CommandType.TURN, result.getCommand());
     }
 
+    /**
+     * Verifica que el almacén fuera del heap conserva el contenido de las instrucciones,
+     * respeta el consumo selectivo y reutiliza el espacio al dar la vuelta al anillo.
+     * @throws InterruptedException si el hilo es interrumpido durante la espera.
+     */
+    @Test
+    @DisplayName("Cola Fuera del Heap en Anillo de Bytes")
+    public void testOffHeapStore() throws InterruptedException {
+        OffHeapInstructionStore store = new OffHeapInstructionStore(64);
+        InstructionBox box = new InstructionBox(store);
+
+        for (int i = 0; i < 50; i++) {
+            box.put(new Instruction(1, CommandType.MOVE, "paso-" + i));
+            box.put(new Instruction(2, CommandType.TURN, "LEFT"));
+
+            Instruction turn = box.takeFor(2);
+            Instruction move = box.takeFor(1);
+
+            assertEquals(CommandType.TURN, turn.getCommand());
+            assertEquals("paso-" + i, move.getParams());
+        }
+
+        assertEquals(0, store.size());
+        assertEquals(0, store.usedBytes(), "El espacio debe recuperarse al vaciar la cola");
+        int stored = 0;
+        while (store.offer(new Instruction(3, CommandType.PICK, "caja"))) {
+            stored++;
+        }
+        assertEquals(4, stored, "El anillo de 64 bytes admite 4 registros de 16 bytes");
+        assertThrows(IllegalArgumentException.class, 
+                () -> store.offer(new Instruction(3, CommandType.MOVE, "x".repeat(100))));
+    }
+
+    /**
+     * Verifica que un registro pendiente que nadie extrae en la cabeza del anillo no bloquea
+     * el almacén: los huecos consumidos detrás de él se recuperan compactando. Comprueba
+     * también que el buzón rechaza IDs que ningún robot atiende.
+     * @throws InterruptedException si el hilo es interrumpido durante la espera.
+     */
+    @Test
+    @DisplayName("Cabeza del Anillo Ocupada por un Robot Inexistente")
+    public void testOffHeapStorePinnedHead() throws InterruptedException {
+        OffHeapInstructionStore store = new OffHeapInstructionStore(64);
+        InstructionBox box = new InstructionBox(store);
+
+        box.put(new Instruction(99, CommandType.PICK, "caja"));
+        for (int i = 0; i < 50; i++) {
+            // offer() directo: si el anillo se atasca, put() esperaría para siempre
+            assertTrue(store.offer(new Instruction(1, CommandType.MOVE, "paso-" + i)), "Ciclo " + i);
+            assertEquals("paso-" + i, box.takeFor(1).getParams());
+        }
+        assertEquals(1, store.size());
+        assertEquals("caja", box.takeFor(99).getParams());
+        assertEquals(0, store.usedBytes());
+
+        new Robot(1, box);
+        assertThrows(IllegalArgumentException.class,
+                () -> box.put(new Instruction(99, CommandType.PICK, "caja")));
+        box.put(new Instruction(1, CommandType.MOVE, "10"));
+    }
+
+    /**
+     * Verifica que la compactación trabaja sobre el propio anillo: con la memoria directa
+     * limitada a 16 MB (ver {@code argLine} en el pom), un anillo de 12 MB con la cabeza
+     * ocupada debe compactarse varias veces sin reservar otro buffer de su tamaño.
+     */
+    @Test
+    @DisplayName("Compactación del Anillo sin Memoria Adicional")
+    public void testOffHeapCompactionInPlace() {
+        OffHeapInstructionStore store = new OffHeapInstructionStore(12 * 1024 * 1024);
+        String payload = "x".repeat(1000);
+
+        assertTrue(store.offer(new Instruction(99, CommandType.PICK, "caja")));
+        assertTrue(store.offer(new Instruction(2, CommandType.TURN, "LEFT")));
+        for (int i = 0; i < 40_000; i++) {
+            assertTrue(store.offer(new Instruction(1, CommandType.MOVE, i + payload)), "Ciclo " + i);
+            if (i % 7 == 0) {
+                // Un registro pendiente a mitad de anillo, que sobrevive a la compactación
+                assertTrue(store.offer(new Instruction(3, CommandType.PICK, "p" + i)));
+            }
+            assertEquals(i + payload, store.removeFirstFor(1).getParams());
+            if (i % 7 == 3) {
+                assertEquals("p" + (i - 3), store.removeFirstFor(3).getParams(), "Orden FIFO del robot 3");
+            }
+        }
+        assertEquals("LEFT", store.removeFirstFor(2).getParams());
+        assertEquals("caja", store.removeFirstFor(99).getParams());
+    }
+
+    /**
+     * Verifica que un productor bloqueado por falta de espacio no encola su instrucción
+     * cuando el apagado vacía el almacén, y que {@code put} informa del rechazo.
+     * @throws Exception si el hilo productor falla o es interrumpido.
+     */
+    @Test
+    @DisplayName("Productor Bloqueado Durante el Apagado")
+    public void testPutDuringShutdown() throws Exception {
+        OffHeapInstructionStore store = new OffHeapInstructionStore(64);
+        InstructionBox box = new InstructionBox(store);
+        while (store.offer(new Instruction(1, CommandType.PICK, "caja"))) {
+            // Llenamos el anillo
+        }
+
+        boolean[] accepted = {true};
+        Thread producer = new Thread(() -> {
+            try {
+                accepted[0] = box.put(new Instruction(1, CommandType.MOVE, "10"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        while (producer.isAlive() && producer.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        box.shutdown();
+        producer.join(2000);
+
+        assertFalse(producer.isAlive());
+        assertFalse(accepted[0], "La instruccion no debe aceptarse tras el apagado");
+        assertEquals(0, store.size());
+        assertFalse(box.put(new Instruction(1, CommandType.MOVE, "10")));
+    }
+
+    /**
+     * Comprueba que el cubo de fichas permite la ráfaga configurada, rechaza el exceso
+     * y se recupera al ritmo de la tasa indicada.
+     */
+    @Test
+    @DisplayName("Limitación de Tasa con Cubo de Fichas")
+    public void testTokenBucket() {
+        TokenBucket bucket = new TokenBucket(10, 3); // 10 msg/s, ráfaga de 3
+        long t0 = 1_000_000_000L;
+
+        assertTrue(bucket.isFull(t0));
+        assertTrue(bucket.tryAcquire(t0));
+        assertTrue(bucket.tryAcquire(t0));
+        assertTrue(bucket.tryAcquire(t0));
+        assertFalse(bucket.tryAcquire(t0), "La cuarta petición supera la ráfaga");
+
+        assertTrue(bucket.tryAcquire(t0 + 100_000_000L), "A los 100 ms se repone una ficha");
+        assertFalse(bucket.tryAcquire(t0 + 100_000_000L));
+        assertTrue(bucket.isFull(t0 + 400_000_000L), "Inactivo, el cubo vuelve a llenarse");
+    }
+
+    /**
+     * Verifica que la simulación en tiempo virtual es determinista con la misma semilla
+     * y que respeta el orden FIFO por robot con tiempos de servicio fijos.
+     */
+    @Test
+    @DisplayName("Simulación Determinista en Tiempo Virtual")
+    public void testFleetSimulation() {
+        FleetSimulation fixed = new FleetSimulation(ServiceTimeModel.fixed(100), 1L);
+        fixed.schedule(0, new Instruction(1, CommandType.MOVE, "10"));
+        fixed.schedule(0, new Instruction(1, CommandType.PICK, ""));
+        fixed.schedule(50, new Instruction(2, CommandType.TURN, "LEFT"));
+        FleetSimulation.Result result = fixed.run();
+
+        assertEquals(3, result.getCompleted());
+        assertEquals(200, result.getEndMillis(), "El robot 1 encadena dos tareas de 100 ms");
+        assertEquals(100, result.getMaxWaitMillis());
+
+        assertEquals(simulateUniformLoad(7L).toString(), simulateUniformLoad(7L).toString(),
+                "La misma semilla debe producir el mismo resultado");
+
+        CommandRegistry registry = new CommandRegistry();
+        registry.register("SCAN", CommandHandler.NONE, ServiceTimeModel.fixed(30));
+        FleetSimulation custom = new FleetSimulation(ServiceTimeModel.fixed(100), 1L, registry);
+        custom.schedule(0, InstructionParser.parse("1|SCAN|zona-A", registry));
+        custom.schedule(0, new Instruction(1, CommandType.MOVE, "10"));
+        assertEquals(130, custom.run().getEndMillis(), "SCAN usa su propio modelo de 30 ms");
+
+        assertThrows(IllegalArgumentException.class, () -> ServiceTimeModel.parse("fixed:-5"));
+        assertThrows(IllegalArgumentException.class, () -> ServiceTimeModel.parse("uniform:-10:0"));
+        assertThrows(IllegalArgumentException.class, () -> ServiceTimeModel.parse("exp:-3"));
+    }
+
+    private FleetSimulation.Result simulateUniformLoad(long seed) {
+        FleetSimulation simulation = new FleetSimulation(ServiceTimeModel.uniform(500, 1500), seed);
+        for (int i = 0; i < 1000; i++) {
+            simulation.schedule(i * 300L, new Instruction(1 + i % 3, CommandType.MOVE, ""));
+        }
+        return simulation.run();
+    }
+
+    /**
+     * Verifica que el grabador de tráfico escribe la traza binaria de forma asíncrona
+     * y que se puede leer conservando orden, conexión y contenido de cada línea.
+     * @param dir Directorio temporal para el fichero de traza.
+     * @throws IOException Si falla la escritura o lectura de la traza.
+     */
+    @Test
+    @DisplayName("Captura y Lectura de Trazas de Tráfico")
+    public void testTraceCapture(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("captura.trace");
+        TraceRecorder recorder = new TraceRecorder(file);
+        int first = recorder.newConnectionId();
+        int second = recorder.newConnectionId();
+        recorder.record(first, "1|MOVE|10");
+        recorder.record(second, "2|TURN|LEFT");
+        recorder.record(first, "1|PICK|caja ñ");
+        recorder.close();
+        recorder.record(first, "1|MOVE|20");
+        assertEquals(1, recorder.getDropped(), "Tras el cierre las líneas se cuentan como descartadas");
+
+        List<TraceRecorder.Entry> entries = TraceRecorder.read(file);
+
+        assertEquals(3, entries.size());
+        assertEquals("1|MOVE|10", entries.get(0).getLine());
+        assertEquals(entries.get(0).getConnectionId(), entries.get(2).getConnectionId());
+        assertNotEquals(entries.get(0).getConnectionId(), entries.get(1).getConnectionId());
+        assertEquals("1|PICK|caja ñ", entries.get(2).getLine());
+        assertTrue(entries.get(2).getOffsetMicros() >= entries.get(1).getOffsetMicros());
+
+        // Un proceso detenido de golpe deja el último registro a medias: se ignora
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        assertEquals(2, TraceRecorder.read(file).size());
+
+        // Si el disco falla, close() no se bloquea y todas las líneas perdidas se contabilizan
+        Path full = Path.of("/dev/full");
+        Assumptions.assumeTrue(Files.isWritable(full), "Requiere /dev/full");
+        TraceRecorder failing = new TraceRecorder(full);
+        for (int i = 0; i < 100; i++) {
+            failing.record(1, "1|MOVE|" + i);
+        }
+        assertThrows(IOException.class, failing::close);
+        assertEquals(100, failing.getDropped());
+    }
+
+    /**
+     * Verifica el registro de comandos: los comandos incorporados se resuelven sin distinguir
+     * mayúsculas, los desconocidos se rechazan y los definidos en configuración se pueden
+     * añadir y retirar recargando el fichero, sin reiniciar.
+     * @param dir Directorio temporal para el fichero de configuración.
+     * @throws IOException Si falla la escritura o lectura de la configuración.
+     * @throws InterruptedException si el hilo es interrumpido durante la espera.
+     */
+    @Test
+    @DisplayName("Registro de Comandos con Recarga en Caliente")
+    public void testCommandRegistry(@TempDir Path dir) throws IOException, InterruptedException {
+        CommandRegistry registry = new CommandRegistry();
+        assertEquals(CommandType.TURN, InstructionParser.parse(" 2 | turn | LEFT ", registry).getCommand());
+        assertThrows(IllegalArgumentException.class, () -> InstructionParser.parse("1|SCAN|", registry));
+        assertNull(InstructionParser.tryParse("1|SCAN|", registry), "Sin excepción para comandos desconocidos");
+
+        Path config = dir.resolve("commands.properties");
+        Files.writeString(config, "SCAN = fixed:5\nWELD = exp:800 ; com.cristian.centralrobots.core.CommandHandler\n");
+        assertThrows(IllegalArgumentException.class, () -> registry.reload(config),
+                "Una clase que no se puede instanciar invalida la configuración completa");
+        assertNull(registry.lookup("SCAN"), "Una configuración errónea no se aplica a medias");
+
+        Files.writeString(config, "SCAN = fixed:5\n");
+        registry.reload(config);
+        Instruction scan = InstructionParser.parse("3|scan|zona-A", registry);
+        assertEquals(CommandType.CUSTOM, scan.getCommand());
+        assertEquals("SCAN", scan.getCommandName());
+
+        InstructionBox box = new InstructionBox(new OffHeapInstructionStore(256));
+        box.put(scan);
+        Instruction stored = box.takeFor(3);
+        assertEquals("SCAN", stored.getCommandName());
+        assertEquals("zona-A", stored.getParams());
+
+        Files.writeString(config, "");
+        registry.reload(config);
+        assertThrows(IllegalArgumentException.class, () -> InstructionParser.parse("3|SCAN|", registry));
+    }
+
+    /**
+     * Verifica la recarga en caliente del fichero vigilado: aplica los cambios, ignora un
+     * fichero vaciado a medio guardar y acepta la sustitución atómica por renombrado.
+     * @param dir Directorio temporal para el fichero de configuración.
+     * @throws Exception si falla la escritura del fichero o la espera.
+     */
+    @Test
+    @DisplayName("Vigilancia del Fichero de Comandos")
+    public void testCommandRegistryWatch(@TempDir Path dir) throws Exception {
+        CommandRegistry registry = new CommandRegistry();
+        Path config = dir.resolve("commands.properties");
+        Files.writeString(config, "SCAN = fixed:5\n");
+
+        try (Closeable watch = registry.watch(config)) {
+            assertNotNull(registry.lookup("SCAN"), "La carga inicial es inmediata");
+
+            Files.writeString(config, "SCAN = fixed:5\nWELD = fixed:10\n");
+            awaitLookup(registry, "WELD", true);
+
+            Files.writeString(config, "");
+            Thread.sleep(1000);
+            assertNotNull(registry.lookup("WELD"), "Un fichero vacío (truncado) no se aplica");
+
+            Path tmp = dir.resolve("commands.tmp");
+            Files.writeString(tmp, "# sin comandos\n");
+            Files.move(tmp, config, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            awaitLookup(registry, "WELD", false);
+            assertNull(registry.lookup("SCAN"));
+        }
+    }
+
+    private static void awaitLookup(CommandRegistry registry, String name, boolean present)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((registry.lookup(name) != null) != present) {
+            assertTrue(System.currentTimeMillis() < deadline, "La recarga de " + name + " no llega");
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Verifica que un manejador de comando que lanza una excepción no detiene al robot:
+     * la siguiente instrucción para el mismo robot se ejecuta con normalidad.
+     * @throws InterruptedException si el hilo es interrumpido durante la espera.
+     */
+    @Test
+    @DisplayName("Robot Resistente a Fallos del Manejador")
+    public void testFailingHandler() throws InterruptedException {
+        CommandRegistry registry = new CommandRegistry();
+        CountDownLatch done = new CountDownLatch(1);
+        registry.register("BOOM", (robotId, instr) -> { throw new IllegalStateException("fallo"); }, null);
+        registry.register("SCAN", (robotId, instr) -> done.countDown(), null);
+
+        InstructionBox box = new InstructionBox();
+        Thread robot = new Thread(new Robot(1, box, ServiceTimeModel.fixed(0), new Random(1L), registry));
+        robot.start();
+        box.put(InstructionParser.parse("1|BOOM|", registry));
+        box.put(InstructionParser.parse("1|SCAN|", registry));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS), "La instruccion posterior al fallo debe ejecutarse");
+        assertTrue(robot.isAlive());
+        box.shutdown();
+        robot.join(2000);
+        assertFalse(robot.isAlive());
+    }
+
     /**
      * Prueba de integración que simula un entorno de red real utilizando puertos efímeros.
      * Verifica el ciclo completo de vida de una petición: conexión TCP, envío de stream, 
@@ -110,6 +465,75 @@ public class RobotSystemTest {
         }
     }
 
+    /**
+     * Prueba de integración de la limitación de tasa a través de la red: el exceso sobre el
+     * límite por robot recibe {@code ERROR|RATE_LIMITED} y los IDs que ningún robot atiende se
+     * rechazan sin consumir fichas ni crear cubos.
+     * @throws IOException Si ocurre un error en la apertura de los sockets de prueba.
+     */
+    @Test
+    @DisplayName("Limitación de Tasa a través de la Red")
+    public void testRateLimitedNetwork() throws IOException {
+        InstructionBox box = new InstructionBox();
+        new Robot(1, box);
+        RateLimiter limiter = new RateLimiter(null, null, new RateLimiter.Limit(0.01, 2));
+
+        try (ServerSocket tempServer = new ServerSocket(0)) {
+            int port = tempServer.getLocalPort();
+
+            Thread listener = new Thread(() -> {
+                try {
+                    Socket s = tempServer.accept();
+                    new ClientHandler(s, box, limiter).run();
+                } catch (Exception ignored) {}
+            });
+            listener.start();
+
+            try (Socket client = new Socket("localhost", port);
+                 PrintWriter writer = new PrintWriter(client.getOutputStream(), true);
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream()))) {
+
+                for (int id = 100; id < 110; id++) {
+                    writer.println(id + "|MOVE|1");
+                    assertEquals("ERROR|No existe ningun robot con ID " + id, reader.readLine());
+                }
+                assertEquals(0, limiter.trackedBuckets(), "Los IDs inexistentes no crean cubos");
+
+                writer.println("1|MOVE|1");
+                assertTrue(reader.readLine().startsWith("OK"));
+                writer.println("1|MOVE|2");
+                assertTrue(reader.readLine().startsWith("OK"));
+                writer.println("1|MOVE|3");
+                assertEquals("ERROR|RATE_LIMITED", reader.readLine());
+            }
+        }
+    }
+
+    /**
+     * Verifica que el limitador elimina los cubos de clientes inactivos (llenos) y conserva
+     * los que aún se están recuperando, de modo que la memoria no crece con cada IP vista.
+     * @throws IOException Si no se puede construir una dirección de prueba.
+     */
+    @Test
+    @DisplayName("Limpieza de Cubos Inactivos del Limitador")
+    public void testRateLimiterEviction() throws IOException {
+        RateLimiter limiter = new RateLimiter(null, new RateLimiter.Limit(10, 3), new RateLimiter.Limit(0.01, 1));
+        long t0 = System.nanoTime();
+        for (int i = 1; i <= 50; i++) {
+            assertTrue(limiter.tryAcquireIp(InetAddress.getByAddress(new byte[]{10, 0, 0, (byte) i}), t0));
+        }
+        assertTrue(limiter.tryAcquireRobot(1, t0));
+        assertFalse(limiter.tryAcquireRobot(1, t0), "Ráfaga de 1 agotada");
+        assertEquals(51, limiter.trackedBuckets());
+
+        // Pasado el intervalo de revisión, los cubos por IP ya se han rellenado y se eliminan;
+        // el del robot 1 (0.01 fichas/s) sigue vacío y debe conservarse
+        long later = t0 + 11_000_000_000L;
+        assertTrue(limiter.tryAcquireIp(InetAddress.getByAddress(new byte[]{10, 0, 0, 1}), later));
+        assertEquals(2, limiter.trackedBuckets());
+        assertFalse(limiter.tryAcquireRobot(1, later), "El cubo conservado mantiene su estado");
+    }
+
     /**
      * Valida el comportamiento del sistema ante una señal de terminación, asegurando 
      * que el monitor desbloquea los hilos en espera y permite un cierre limpio.
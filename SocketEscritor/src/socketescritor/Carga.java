@@ -0,0 +1,160 @@
+package socketescritor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Datos que el escritor manda a cada lector que se conecta.
+ * Cada conexión llama a enviar() con su propio canal, por lo que las cargas
+ * no guardan estado de la conexión y se pueden compartir entre hilos.
+ */
+public abstract class Carga {
+
+    protected static final int TAMANO_BUFFER = 64 * 1024;
+
+    /**
+     * Manda la carga completa por el canal, sumando en el contador los bytes
+     * a medida que se escriben: si el lector se desconecta a mitad, el
+     * contador refleja lo enviado hasta entonces.
+     */
+    public abstract void enviar(SocketChannel canal, Contador enviados) throws IOException;
+
+    /**
+     * Escribe el buffer completo en el canal (write puede escribir menos
+     * bytes de los pedidos).
+     */
+    protected static void escribirTodo(SocketChannel canal, ByteBuffer buffer, Contador enviados)
+            throws IOException {
+        while (buffer.hasRemaining())
+            enviados.sumar(canal.write(buffer));
+    }
+
+    /**
+     * Bytes enviados por una conexión. Cada conexión tiene el suyo, porque
+     * la carga se comparte entre hilos.
+     */
+    public static class Contador {
+
+        private long bytes = 0;
+
+        void sumar(long n) {
+            bytes += n;
+        }
+
+        public long valor() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Líneas numeradas "i mandado por el lector", acumuladas en un buffer
+     * grande y mandadas en bloque en lugar de hacer flush() tras cada una.
+     */
+    public static class Generador extends Carga {
+
+        private final long numLineas;
+
+        public Generador(long numLineas) {
+            this.numLineas = numLineas;
+        }
+
+        public void enviar(SocketChannel canal, Contador enviados) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+            for (long i = 0; i < numLineas; i++) {
+                byte[] linea = (i + " mandado por el lector\n").getBytes("UTF-8");
+                if (buffer.remaining() < linea.length) {
+                    buffer.flip();
+                    escribirTodo(canal, buffer, enviados);
+                    buffer.clear();
+                }
+                buffer.put(linea);
+            }
+            buffer.flip();
+            escribirTodo(canal, buffer, enviados);
+        }
+    }
+
+    /**
+     * Contenido de un fichero, mandado con FileChannel.transferTo para que el
+     * sistema operativo copie del fichero al socket sin pasar por Java.
+     */
+    public static class Fichero extends Carga {
+
+        private final String ruta;
+
+        public Fichero(String ruta) {
+            //Comprobamos el fichero al arrancar y no al atender al primer lector
+            File fichero = new File(ruta);
+            if (!fichero.isFile() || !fichero.canRead())
+                throw new IllegalArgumentException("No se puede leer el fichero: " + ruta);
+            this.ruta = ruta;
+        }
+
+        public void enviar(SocketChannel canal, Contador enviados) throws IOException {
+            FileInputStream entrada = new FileInputStream(ruta);
+            try {
+                FileChannel fichero = entrada.getChannel();
+                long tamano = fichero.size();
+                long posicion = 0;
+                while (posicion < tamano) {
+                    long transferidos = fichero.transferTo(posicion, tamano - posicion, canal);
+                    posicion += transferidos;
+                    enviados.sumar(transferidos);
+                }
+            } finally {
+                entrada.close();
+            }
+        }
+    }
+
+    /**
+     * Un número de bytes de relleno, opcionalmente a un ritmo máximo en
+     * bytes/seg. Sirve como prueba de ancho de banda en loopback.
+     */
+    public static class Sintetica extends Carga {
+
+        private final long tamano;
+        private final long bytesPorSegundo; //0 = sin límite
+
+        public Sintetica(long tamano, long bytesPorSegundo) {
+            this.tamano = tamano;
+            this.bytesPorSegundo = bytesPorSegundo;
+        }
+
+        public void enviar(SocketChannel canal, Contador contador) throws IOException {
+            ByteBuffer bloque = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+            while (bloque.hasRemaining())
+                bloque.put((byte) ('a' + bloque.position() % 26));
+            long inicio = System.currentTimeMillis();
+            long enviados = 0;
+            while (enviados < tamano) {
+                bloque.clear();
+                if (tamano - enviados < bloque.capacity())
+                    bloque.limit((int) (tamano - enviados));
+                enviados += bloque.remaining();
+                escribirTodo(canal, bloque, contador);
+                if (bytesPorSegundo > 0)
+                    esperarRitmo(inicio, enviados);
+            }
+        }
+
+        /**
+         * Duerme lo necesario para no superar el ritmo configurado.
+         */
+        private void esperarRitmo(long inicio, long enviados) throws IOException {
+            long debido = inicio + enviados * 1000 / bytesPorSegundo;
+            long espera = debido - System.currentTimeMillis();
+            if (espera > 0)
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Envío interrumpido");
+                }
+        }
+    }
+}
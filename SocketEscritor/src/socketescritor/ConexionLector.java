@@ -0,0 +1,45 @@
+package socketescritor;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Atiende a un único lector en su propio hilo: le manda la carga, cierra
+ * el canal e informa del rendimiento de la conexión.
+ */
+public class ConexionLector implements Runnable {
+
+    private final SocketChannel canal;
+    private final Carga carga;
+    private final int numero; //Número de conexión, para los mensajes
+
+    public ConexionLector(SocketChannel canal, Carga carga, int numero) {
+        this.canal = canal;
+        this.carga = carga;
+        this.numero = numero;
+    }
+
+    public void run() {
+        long inicio = System.currentTimeMillis();
+        Carga.Contador contador = new Carga.Contador();
+        try {
+            carga.enviar(canal, contador);
+        } catch (IOException ex) {
+            //Lo normal al acabar una prueba de ancho de banda: el lector se desconecta
+            System.err.println("Conexión " + numero + ": el lector cerró la conexión o falló la escritura.");
+            System.err.println(ex.toString());
+        } finally {
+            //Nos aseguramos de que se cierra el canal
+            try {
+                canal.close();
+            } catch (IOException ex) {
+                System.err.println("Error al cerrar el socket.");
+                System.err.println(ex.toString());
+            }
+        }
+        long enviados = contador.valor();
+        long ms = Math.max(1, System.currentTimeMillis() - inicio);
+        System.out.println("Conexión " + numero + " finalizada: " + enviados + " bytes en "
+                + ms + " ms (" + (enviados * 1000 / ms / 1024) + " KB/seg)");
+    }
+}
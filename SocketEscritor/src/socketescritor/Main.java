@@ -2,69 +2,144 @@ package socketescritor;
 
 
 import java.io.*;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 public class Main {
     /**
+     * Servidor escritor: atiende a varios lectores a la vez hasta que se
+     * detiene el proceso (Ctrl+C).
+     *
+     * Opciones:
+     *   --puerto PUERTO      puerto de escucha (por defecto 12345)
+     *   --lineas N           manda N líneas numeradas (por defecto 10)
+     *   --fichero RUTA       manda el contenido de un fichero
+     *   --tamano BYTES       manda BYTES bytes de relleno
+     *   --tasa BYTES_SEG     limita el ritmo de --tamano (por defecto sin límite)
+     *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        ServerSocket conexion = null; //Socket para aceptar conexiones
-        Socket canal = null; //Socket para establecer canal de comunicación
-        PrintWriter streamSalida = null;
+        final ServerSocketChannel conexion; //Canal para aceptar conexiones
+        final ExecutorService hilos = Executors.newCachedThreadPool(); //Un hilo por lector
+        int puerto;
+        Carga carga;
         try{
-           conexion = new ServerSocket( 12345 );
+            comprobarOpciones(args);
+            puerto = leerPuerto(args);
+            carga = leerCarga(args);
+        }catch(IllegalArgumentException ex){
+            System.err.println(ex.getMessage());
+            return;
+        }
+        try{
+           conexion = ServerSocketChannel.open();
+           conexion.socket().setReuseAddress(true);
+           conexion.socket().bind(new InetSocketAddress( puerto ));
            //Solicitamos al sistema operativo que abra un puerto de escucha
-           //de conexiones. El número del puerto es el 12345
+           //de conexiones.
         }catch(IOException ex){
             System.err.println("No se ha podido abrir el puerto de escucha.");
             System.err.println(ex.toString());
+            return;
         }
-        if (conexion != null) //Si hemos podido abrir el puerto
+        Runtime.getRuntime().addShutdownHook(new Thread(){
+            public void run(){
+                //Al detener el proceso cerramos el puerto: accept() deja de
+                //bloquear y el bucle principal termina
+                try{
+                    conexion.close();
+                }catch (IOException ex) {
+                    System.err.println("Error al cerrar ServerSocket.");
+                    System.err.print(ex.toString());
+                }
+                hilos.shutdown();
+            }
+        });
+        System.out.println("Proceso escritor, esperando "+
+                "conexiones de procesos lectores en el puerto " + puerto + "....");
+        int numero = 0;
+        while (conexion.isOpen())
             try{
-                System.out.println("Proceso escritor, esperando "+
-                        "la conexión del proceso lector....");
-                canal = conexion.accept();
+                SocketChannel canal = conexion.accept();
                 //Esperamos hasta que se produzca una conexión al puerto
-                //El método ServerSocket.accept(); bloquea (hace dormir)
-                //el proceso hasta que se produce una conexión
-                streamSalida = new PrintWriter(canal.getOutputStream());
-                //Creamos un objeto PrintWriter a partir del Stream de salida
-                //del socket o canal de comunicación
-                //El objeto PrintWriter, nos permitirá utilizar los métodos
-                //print y write para mandar datos al proceso que está
-                //escuchando al otro lado del canal.
-                System.out.println("Conexión establecida, mandando datos "+
-                        "al proceso lector....");
-                for (int i=0; i<10; i++){
-                    streamSalida.println(i+" mandado por el lector"); //Mandamos del 0 al 9
-                    streamSalida.flush(); //Forzamos que mande cada número
+                //y la atendemos en otro hilo para seguir aceptando lectores
+                numero++;
+                System.out.println("Conexión " + numero + " establecida con " +
+                        canal.socket().getInetAddress() + ", mandando datos....");
+                hilos.execute(new ConexionLector(canal, carga, numero));
+            }catch(IOException ex){
+                if (conexion.isOpen()){
+                    System.err.println("No se ha podido establecer conexión.");
+                    System.err.println(ex.toString());
                 }
-                System.out.println("Comunicación finalizada.");
-            }catch(Exception ex){
-                System.err.println("No se ha podido establecer conexión, " +
-                    "o no ha ocurrido un fallo al escribir en el canal.");
-                 System.err.print(ex.toString());
-            }finally{
-            //Nos aseguramos de que se cierren los recursos
-            //que estamos utilizando
-                if (streamSalida != null)//PrintWriter
-                    streamSalida.close(); //su cierre no genera excepciones
-                if (canal != null) //Socket
-                    try{
-                        canal.close();
-                    }catch (IOException ex) {
-                        System.err.println("Error al cerrar el socket.");
-                        System.err.print(ex.toString());
-                    }
-                if (conexion != null) //ServerSocket
-                    try{
-                    conexion.close();
-                    }catch (IOException ex) {
-                        System.err.println("Error al cerrar ServerSocket.");
-                        System.err.print(ex.toString());
-                    }
             }
+        System.out.println("Escritor detenido.");
+    }
+
+    /**
+     * Rechaza opciones desconocidas (p. ej. mal escritas) u opciones sin
+     * valor, en lugar de ignorarlas y arrancar con la carga por defecto.
+     */
+    private static void comprobarOpciones(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            String opcion = args[i];
+            if (!opcion.equals("--puerto") && !opcion.equals("--lineas")
+                    && !opcion.equals("--fichero") && !opcion.equals("--tamano")
+                    && !opcion.equals("--tasa"))
+                throw new IllegalArgumentException("Opción desconocida: " + opcion);
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Falta el valor de la opción " + opcion);
+        }
+    }
+
+    private static int leerPuerto(String[] args) {
+        String valor = valorOpcion(args, "--puerto");
+        return valor == null ? 12345 : Integer.parseInt(valor);
+    }
+
+    /**
+     * Elige la carga a partir de las opciones. Sin opciones se mantiene el
+     * comportamiento original: diez líneas numeradas. Las opciones que no
+     * encajan entre sí se rechazan en lugar de ignorarse.
+     */
+    private static Carga leerCarga(String[] args) {
+        String fichero = valorOpcion(args, "--fichero");
+        String tamano = valorOpcion(args, "--tamano");
+        String lineas = valorOpcion(args, "--lineas");
+        String tasa = valorOpcion(args, "--tasa");
+        int cargas = (fichero != null ? 1 : 0) + (tamano != null ? 1 : 0) + (lineas != null ? 1 : 0);
+        if (cargas > 1)
+            throw new IllegalArgumentException(
+                    "Las opciones --fichero, --tamano y --lineas no se pueden combinar");
+        if (tasa != null && tamano == null)
+            throw new IllegalArgumentException("La opción --tasa solo se aplica con --tamano");
+        if (fichero != null)
+            return new Carga.Fichero(fichero);
+        if (tamano != null)
+            return new Carga.Sintetica(leerNoNegativo(tamano, "--tamano"),
+                    tasa == null ? 0 : leerNoNegativo(tasa, "--tasa"));
+        return new Carga.Generador(lineas == null ? 10 : leerNoNegativo(lineas, "--lineas"));
+    }
+
+    private static long leerNoNegativo(String valor, String opcion) {
+        long numero = Long.parseLong(valor);
+        if (numero < 0)
+            throw new IllegalArgumentException("El valor de la opción " + opcion
+                    + " no puede ser negativo: " + valor);
+        return numero;
+    }
+
+    private static String valorOpcion(String[] args, String opcion) {
+        for (int i = 0; i < args.length; i++)
+            if (args[i].equals(opcion)){
+                if (i + 1 >= args.length)
+                    throw new IllegalArgumentException("Falta el valor de la opción " + opcion);
+                return args[i + 1];
+            }
+        return null;
     }
 
 }
@@ -0,0 +1,269 @@
+package socketlector;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Lector de alto rendimiento: lee del canal con NIO en lugar de
+ * BufferedReader.readLine() y vuelca los bytes tal cual, sin convertirlos en
+ * String ni imprimirlos línea a línea.
+ *
+ * Opciones (después de --rapido):
+ *   --salida FICHERO   escribe en FICHERO (por defecto, la salida estándar)
+ *   --rotar MB         empieza un fichero nuevo cada MB megabytes
+ *   --filtro TEXTO     solo escribe las líneas que contienen TEXTO
+ *   --host HOST        equipo del escritor (por defecto localhost)
+ *   --puerto PUERTO    puerto del escritor (por defecto 12345)
+ *
+ * @author usuario
+ */
+public class LectorCanal {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private String host = "localhost";
+    private int puerto = 12345;
+    private String fichero = null; //null = salida estándar
+    private long bytesRotacion = 0; //0 = sin rotación
+    private String filtro = null; //null = sin decodificar
+
+    private long totalBytes = 0; //Bytes recibidos del canal
+    private long bytesUltimoInforme = 0;
+    private long inicio;
+    private long ultimoInforme;
+
+    public static void main(String[] args) {
+        LectorCanal lector = new LectorCanal();
+        try {
+            lector.leerOpciones(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            return;
+        }
+        lector.ejecutar();
+    }
+
+    private void leerOpciones(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String opcion = args[i];
+            if (opcion.equals("--rapido"))
+                continue;
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Falta el valor de la opción " + opcion);
+            String valor = args[++i];
+            if (opcion.equals("--salida"))
+                fichero = valor;
+            else if (opcion.equals("--rotar"))
+                bytesRotacion = Long.parseLong(valor) * 1024 * 1024;
+            else if (opcion.equals("--filtro"))
+                filtro = valor;
+            else if (opcion.equals("--host"))
+                host = valor;
+            else if (opcion.equals("--puerto"))
+                puerto = Integer.parseInt(valor);
+            else
+                throw new IllegalArgumentException("Opción desconocida: " + opcion);
+        }
+    }
+
+    public void ejecutar() {
+        SocketChannel canal = null; //Canal NIO con el escritor
+        Salida salida = null;
+        try {
+            canal = SocketChannel.open(new InetSocketAddress(host, puerto));
+            //Canal bloqueante: cada lectura espera hasta que llegan datos
+        } catch (IOException ex) {
+            System.err.println("No se ha podido establecer conexión.");
+            System.err.println(ex.toString());
+            return;
+        }
+        try {
+            salida = new Salida(fichero, bytesRotacion);
+            inicio = System.currentTimeMillis();
+            ultimoInforme = inicio;
+            if (filtro != null)
+                leerFiltrando(canal, salida);
+            else
+                copiarConBuffer(canal, salida);
+            informar(true);
+        } catch (IOException ex) {
+            System.err.println("Error leyendo del canal o escribiendo la salida.");
+            System.err.println(ex.toString());
+        } finally {
+            //Nos aseguramos de que se cierran los recursos que estamos utilizando
+            if (salida != null)
+                try {
+                    salida.cerrar();
+                } catch (IOException ex) {
+                    System.err.println("Se ha producido un error al cerrar la salida.");
+                    System.err.println(ex.toString());
+                }
+            try {
+                canal.close();
+            } catch (IOException ex) {
+                System.err.println("Se ha producido un error al cerrar el canal.");
+                System.err.println(ex.toString());
+            }
+        }
+    }
+
+    /**
+     * Sin filtro (hacia la salida estándar o a fichero): un único buffer
+     * directo, reutilizado, que se llena desde el socket y se vacía en bloque.
+     * No usamos FileChannel.transferFrom: con un socket como origen el JDK
+     * copia a través de un buffer nuevo del heap en cada llamada y espera a
+     * reunir la cantidad pedida, lo que retrasa los informes de bytes/seg en
+     * flujos lentos.
+     */
+    private void copiarConBuffer(SocketChannel canal, Salida salida) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+        int leidos;
+        while ((leidos = canal.read(buffer)) != -1) {
+            sumar(leidos);
+            buffer.flip();
+            salida.escribir(buffer);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Con filtro: solo aquí se decodifican las líneas, para poder buscar el
+     * texto. Las líneas que coinciden se acumulan en un buffer de salida y se
+     * escriben en bloque una vez por cada lectura del socket, para que en un
+     * flujo en directo aparezcan en cuanto llegan.
+     */
+    private void leerFiltrando(SocketChannel canal, Salida salida) throws IOException {
+        ByteBuffer entrada = ByteBuffer.allocate(TAMANO_BUFFER); //En heap: necesitamos su array
+        ByteBuffer pendiente = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+        byte[] datos = entrada.array();
+        int leidos;
+        while ((leidos = canal.read(entrada)) != -1) {
+            sumar(leidos);
+            int inicioLinea = 0;
+            for (int i = 0; i < entrada.position(); i++) {
+                if (datos[i] == '\n') {
+                    filtrarLinea(datos, inicioLinea, i + 1, pendiente, salida);
+                    inicioLinea = i + 1;
+                }
+            }
+            if (inicioLinea == 0 && !entrada.hasRemaining()) {
+                //Línea más larga que el buffer: la tratamos como si acabase aquí
+                filtrarLinea(datos, 0, entrada.position(), pendiente, salida);
+                inicioLinea = entrada.position();
+            }
+            //Movemos la línea incompleta al principio del buffer
+            entrada.flip();
+            entrada.position(inicioLinea);
+            entrada.compact();
+            volcar(pendiente, salida);
+        }
+        if (entrada.position() > 0) //Última línea sin salto final
+            filtrarLinea(datos, 0, entrada.position(), pendiente, salida);
+        volcar(pendiente, salida);
+    }
+
+    private void volcar(ByteBuffer pendiente, Salida salida) throws IOException {
+        if (pendiente.position() == 0)
+            return;
+        pendiente.flip();
+        salida.escribir(pendiente);
+        pendiente.clear();
+    }
+
+    private void filtrarLinea(byte[] datos, int desde, int hasta, ByteBuffer pendiente,
+            Salida salida) throws IOException {
+        String linea = new String(datos, desde, hasta - desde, UTF8);
+        if (linea.indexOf(filtro) < 0)
+            return;
+        if (pendiente.remaining() < hasta - desde)
+            volcar(pendiente, salida);
+        if (pendiente.remaining() < hasta - desde)
+            salida.escribir(ByteBuffer.wrap(datos, desde, hasta - desde));
+        else
+            pendiente.put(datos, desde, hasta - desde);
+    }
+
+    private void sumar(long bytes) {
+        totalBytes += bytes;
+        informar(false);
+    }
+
+    /**
+     * Muestra por la salida de errores los bytes/seg recibidos, una vez por
+     * segundo (o al final), para no mezclarlo con los datos.
+     */
+    private void informar(boolean fin) {
+        long ahora = System.currentTimeMillis();
+        if (!fin && ahora - ultimoInforme < 1000)
+            return;
+        if (fin) {
+            long ms = Math.max(1, ahora - inicio);
+            System.err.println("Total: " + totalBytes + " bytes en " + ms + " ms ("
+                    + (totalBytes * 1000 / ms) + " bytes/seg)");
+        } else {
+            long bytesSeg = (totalBytes - bytesUltimoInforme) * 1000 / (ahora - ultimoInforme);
+            System.err.println(bytesSeg + " bytes/seg");
+        }
+        bytesUltimoInforme = totalBytes;
+        ultimoInforme = ahora;
+    }
+
+    /**
+     * Destino de los datos: la salida estándar o un fichero que rota al
+     * alcanzar el tamaño indicado (FICHERO, FICHERO.1, FICHERO.2...).
+     */
+    private static class Salida {
+
+        private final String nombre;
+        private final long bytesRotacion;
+        private FileOutputStream stream;
+        private FileChannel canal;
+        private int numeroFichero = 0;
+        private long escritosFichero = 0;
+
+        Salida(String nombre, long bytesRotacion) throws IOException {
+            this.nombre = nombre;
+            this.bytesRotacion = bytesRotacion;
+            if (nombre == null)
+                stream = new FileOutputStream(FileDescriptor.out);
+            else
+                stream = new FileOutputStream(nombre);
+            canal = stream.getChannel();
+        }
+
+        void escribir(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                rotarSiHaceFalta();
+                int limite = buffer.limit();
+                if (bytesRotacion > 0 && buffer.remaining() > bytesRotacion - escritosFichero)
+                    buffer.limit(buffer.position() + (int) (bytesRotacion - escritosFichero));
+                escritosFichero += canal.write(buffer);
+                buffer.limit(limite);
+            }
+        }
+
+        private void rotarSiHaceFalta() throws IOException {
+            if (nombre == null || bytesRotacion <= 0 || escritosFichero < bytesRotacion)
+                return;
+            stream.close();
+            numeroFichero++;
+            stream = new FileOutputStream(nombre + "." + numeroFichero);
+            canal = stream.getChannel();
+            escritosFichero = 0;
+        }
+
+        void cerrar() throws IOException {
+            if (nombre == null)
+                stream.flush(); //No cerramos la salida estándar
+            else
+                stream.close();
+        }
+    }
+}
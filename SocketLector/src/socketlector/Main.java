@@ -14,6 +14,11 @@ import java.io.*;
 public class Main {
     public static void main(String[] args) {
         // TODO code application logic here
+        if (args.length > 0 && args[0].equals("--rapido")){
+            //Modo de alto rendimiento: lectura por canal NIO sin decodificar líneas
+            LectorCanal.main(args);
+            return;
+        }
         Socket canal = null; //Socket para establecer el canal de conexión con el escritor
         BufferedReader entrada = null; //Para el stream de lectura
         String valorEntrada = null; //Valores que iremos leyendo del canal        